@@ -0,0 +1,83 @@
+package git.benchmark;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import git.domain.Blob;
+import git.domain.ObjectType;
+import git.domain.RawObject;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectReadBenchmark {
+
+    public static final int LOOSE_OBJECT_COUNT = 2048;
+    public static final int LOOSE_OBJECT_SIZE = 512;
+
+    public static final String DISABLED_CACHE_CONFIG = "[java-git]\n\tobjectCacheLimit = 0\n\tblobCacheLimit = 0\n";
+
+    @Param({ "loose", "packed" })
+    public String storage;
+
+    @Param({ "1", "50" })
+    public int chainLength;
+
+    @Param({ "false", "true" })
+    public boolean objectCache;
+
+    private SyntheticRepository repository;
+    private List<String> hashes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DataFormatException, NoSuchAlgorithmException {
+        repository = SyntheticRepository.create(objectCache ? "" : DISABLED_CACHE_CONFIG);
+
+        hashes = switch (storage) {
+            case "loose" -> repository.writeSmallBlobs(LOOSE_OBJECT_COUNT, LOOSE_OBJECT_SIZE);
+            case "packed" -> repository.installDeltaChainPack(chainLength, LOOSE_OBJECT_SIZE, 64).hashes();
+            default -> throw new IllegalArgumentException("unknown storage: " + storage);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    private String nextHash() {
+        return hashes.get(cursor++ % hashes.size());
+    }
+
+    @Benchmark
+    public RawObject readRawObject() throws IOException {
+        return repository.getGit().readRawObject(nextHash());
+    }
+
+    @Benchmark
+    public Blob readObject() throws IOException {
+        return repository.getGit().readObject(ObjectType.BLOB, nextHash());
+    }
+
+}
@@ -0,0 +1,80 @@
+package git.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import git.domain.ObjectType;
+import git.domain.RawObject;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectWriteBenchmark {
+
+    @Param({ "128", "4096" })
+    public int blobSize;
+
+    private SyntheticRepository repository;
+    private ByteBuffer content;
+    private long counter;
+
+    private RawObject existing;
+    private Path hugeFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, NoSuchAlgorithmException {
+        repository = SyntheticRepository.create();
+
+        content = ByteBuffer.wrap(repository.randomBytes(blobSize));
+        existing = new RawObject(ObjectType.BLOB, repository.randomBytes(blobSize));
+        repository.getGit().writeRawObject(existing);
+
+        hugeFile = repository.writeHugeFile("huge.bin", 64L * 1024 * 1024);
+        repository.getGit().writeBlob(hugeFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Benchmark
+    public String writeNewBlob() throws IOException, NoSuchAlgorithmException {
+        content.putLong(0, ++counter);
+
+        return repository.getGit().writeRawObject(new RawObject(ObjectType.BLOB, content.array().clone()));
+    }
+
+    @Benchmark
+    public String writeExistingBlob() throws IOException, NoSuchAlgorithmException {
+        return repository.getGit().writeRawObject(existing);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String writeExistingHugeBlob() throws IOException, NoSuchAlgorithmException {
+        return repository.getGit().writeBlob(hugeFile);
+    }
+
+}
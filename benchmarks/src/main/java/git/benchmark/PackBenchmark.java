@@ -0,0 +1,79 @@
+package git.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import git.domain.RawObject;
+import git.pack.PackIndex;
+import git.pack.PackIndexer;
+import git.pack.PackObject;
+import git.pack.PackParser;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PackBenchmark {
+
+    public static final int BASE_SIZE = 16 * 1024;
+    public static final int GROWTH = 256;
+
+    @Param({ "1", "10", "50", "250" })
+    public int chainLength;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private SyntheticRepository repository;
+    private ByteBuffer buffer;
+    private String tip;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DataFormatException, NoSuchAlgorithmException {
+        repository = SyntheticRepository.create(ObjectReadBenchmark.DISABLED_CACHE_CONFIG);
+
+        buffer = ByteBuffer.wrap(repository.createDeltaChainPack(chainLength, BASE_SIZE, GROWTH).bytes());
+        tip = repository.installDeltaChainPack(chainLength, BASE_SIZE, GROWTH).tip();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Benchmark
+    public List<PackObject> parse() throws IOException, DataFormatException, NoSuchAlgorithmException {
+        return new PackParser(buffer.duplicate()).parse();
+    }
+
+    @Benchmark
+    public List<PackIndex.Entry> index() throws IOException, DataFormatException, NoSuchAlgorithmException {
+        return new PackIndexer(buffer.duplicate(), threads).index();
+    }
+
+    @Benchmark
+    public RawObject readChainTip() throws IOException {
+        return repository.getGit().readRawObject(tip);
+    }
+
+}
@@ -0,0 +1,109 @@
+package git.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import git.Git;
+import git.domain.AuthorSignature;
+import git.domain.Commit;
+import git.domain.ObjectType;
+import git.domain.Tree;
+import git.domain.tree.TreeEntry;
+import git.domain.tree.TreeEntryMode;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({ "16", "1024" })
+    public int treeEntries;
+
+    private SyntheticRepository repository;
+
+    private Tree tree;
+    private byte[] treeBytes;
+
+    private Commit commit;
+    private byte[] commitBytes;
+
+    private Path workTree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, NoSuchAlgorithmException {
+        repository = SyntheticRepository.create();
+
+        final var entries = new ArrayList<TreeEntry>(treeEntries);
+        for (var index = 0; index < treeEntries; ++index) {
+            final var hash = Git.HEX.formatHex(repository.randomBytes(Git.HASH_BYTES_LENGTH));
+            entries.add(new TreeEntry(TreeEntryMode.regularFile(0644), "file-%05d.txt".formatted(index), hash));
+        }
+
+        tree = new Tree(entries);
+        treeBytes = ObjectType.TREE.serializeContent(tree);
+
+        final var signature = new AuthorSignature("benchmark", "benchmark@example.com", ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.ofHours(2)));
+        final var treeHash = Git.HEX.formatHex(repository.randomBytes(Git.HASH_BYTES_LENGTH));
+        final var parentHash = Git.HEX.formatHex(repository.randomBytes(Git.HASH_BYTES_LENGTH));
+
+        commit = new Commit(treeHash, parentHash, signature, signature, "benchmark commit\n\nwith a body\n");
+        commitBytes = ObjectType.COMMIT.serializeContent(commit);
+
+        workTree = repository.createWorkTree("work", 3, 4, treeEntries / 16, 256);
+        repository.getGit().writeTree(workTree);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Benchmark
+    public byte[] serializeTree() throws IOException {
+        return ObjectType.TREE.serializeContent(tree);
+    }
+
+    @Benchmark
+    public Tree deserializeTree() throws IOException {
+        return ObjectType.TREE.deserialize(treeBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeCommit() throws IOException {
+        return ObjectType.COMMIT.serializeContent(commit);
+    }
+
+    @Benchmark
+    public Commit deserializeCommit() throws IOException {
+        return ObjectType.COMMIT.deserialize(commitBytes);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String writeUnchangedTree() throws IOException, NoSuchAlgorithmException {
+        return repository.getGit().writeTree(workTree);
+    }
+
+}
@@ -0,0 +1,168 @@
+package git.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import git.Git;
+import git.domain.ObjectType;
+import git.domain.RawObject;
+
+public record SyntheticPack(
+        byte[] bytes,
+        List<String> hashes
+) {
+
+    public static final byte[] SIGNATURE = { 'P', 'A', 'C', 'K' };
+    public static final int VERSION = 2;
+
+    public static final int BLOB_TYPE = 3;
+    public static final int OFS_DELTA_TYPE = 6;
+
+    public static final int COPY_FLAG = 0x80;
+    public static final int COPY_SIZE_FLAGS = 0x70;
+    public static final int MAX_COPY_SIZE = 0xff_ffff;
+    public static final int MAX_INSERT_SIZE = 0x7f;
+
+    public String tip() {
+        return hashes.getLast();
+    }
+
+    public static SyntheticPack deltaChain(byte[] base, int chainLength, int growth, Random random) throws IOException, NoSuchAlgorithmException {
+        if (base.length + (long) chainLength * growth > MAX_COPY_SIZE) {
+            throw new IllegalArgumentException("chain too large for a single copy instruction");
+        }
+
+        final var digest = MessageDigest.getInstance("SHA-1");
+        final var outputStream = new ByteArrayOutputStream();
+        final var hashes = new ArrayList<String>(chainLength + 1);
+
+        outputStream.write(SIGNATURE);
+        writeInt(outputStream, VERSION);
+        writeInt(outputStream, chainLength + 1);
+
+        var previousOffset = (long) outputStream.size();
+        writeHeader(outputStream, BLOB_TYPE, base.length);
+        outputStream.write(deflate(base));
+        hashes.add(hash(digest, base));
+
+        var content = base;
+        for (var index = 0; index < chainLength; ++index) {
+            final var insert = new byte[growth];
+            random.nextBytes(insert);
+
+            final var delta = createAppendDelta(content.length, insert);
+
+            final var next = Arrays.copyOf(content, content.length + insert.length);
+            System.arraycopy(insert, 0, next, content.length, insert.length);
+
+            final var offset = (long) outputStream.size();
+            writeHeader(outputStream, OFS_DELTA_TYPE, delta.length);
+            writeOffsetEncodedInteger(outputStream, offset - previousOffset);
+            outputStream.write(deflate(delta));
+
+            hashes.add(hash(digest, next));
+            previousOffset = offset;
+            content = next;
+        }
+
+        final var checksum = digest.digest(outputStream.toByteArray());
+        outputStream.write(checksum);
+
+        return new SyntheticPack(outputStream.toByteArray(), List.copyOf(hashes));
+    }
+
+    private static byte[] createAppendDelta(int baseSize, byte[] insert) {
+        final var outputStream = new ByteArrayOutputStream();
+
+        writeVariableLengthInteger(outputStream, baseSize);
+        writeVariableLengthInteger(outputStream, baseSize + insert.length);
+
+        outputStream.write(COPY_FLAG | COPY_SIZE_FLAGS);
+        outputStream.write(baseSize & 0xff);
+        outputStream.write((baseSize >>> 8) & 0xff);
+        outputStream.write((baseSize >>> 16) & 0xff);
+
+        for (var start = 0; start < insert.length; start += MAX_INSERT_SIZE) {
+            final var length = Math.min(MAX_INSERT_SIZE, insert.length - start);
+
+            outputStream.write(length);
+            outputStream.write(insert, start, length);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    private static void writeHeader(ByteArrayOutputStream outputStream, int type, long size) {
+        var current = (type << 4) | (int) (size & 0x0f);
+        size >>>= 4;
+
+        while (size != 0) {
+            outputStream.write(current | 0x80);
+            current = (int) (size & 0x7f);
+            size >>>= 7;
+        }
+
+        outputStream.write(current);
+    }
+
+    private static void writeVariableLengthInteger(ByteArrayOutputStream outputStream, long value) {
+        while (value >= 0x80) {
+            outputStream.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+
+        outputStream.write((int) value);
+    }
+
+    private static void writeOffsetEncodedInteger(ByteArrayOutputStream outputStream, long value) {
+        final var bytes = new byte[10];
+        var position = bytes.length - 1;
+
+        bytes[position] = (byte) (value & 0x7f);
+        while ((value >>>= 7) != 0) {
+            --value;
+            bytes[--position] = (byte) (0x80 | (value & 0x7f));
+        }
+
+        outputStream.write(bytes, position, bytes.length - position);
+    }
+
+    private static void writeInt(ByteArrayOutputStream outputStream, int value) {
+        outputStream.write(value >>> 24);
+        outputStream.write(value >>> 16);
+        outputStream.write(value >>> 8);
+        outputStream.write(value);
+    }
+
+    private static byte[] deflate(byte[] content) {
+        final var deflater = new Deflater();
+
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+
+            final var outputStream = new ByteArrayOutputStream();
+            final var buffer = new byte[Git.STREAM_BUFFER_SIZE];
+
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String hash(MessageDigest digest, byte[] content) throws IOException {
+        return Git.HEX.formatHex(digest.digest(new RawObject(ObjectType.BLOB, content).serialize()));
+    }
+
+}
@@ -0,0 +1,123 @@
+package git.benchmark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+
+import git.Git;
+import git.domain.ObjectType;
+import git.domain.RawObject;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class SyntheticRepository implements Closeable {
+
+    public static final long SEED = 0x5eed;
+
+    private final Path root;
+    private final Git git;
+    private final Random random = new Random(SEED);
+
+    public byte[] randomBytes(int size) {
+        final var bytes = new byte[size];
+        random.nextBytes(bytes);
+
+        return bytes;
+    }
+
+    public List<String> writeSmallBlobs(int count, int size) throws IOException, NoSuchAlgorithmException {
+        final var hashes = new ArrayList<String>(count);
+
+        for (var index = 0; index < count; ++index) {
+            hashes.add(git.writeRawObject(new RawObject(ObjectType.BLOB, randomBytes(size))));
+        }
+
+        return hashes;
+    }
+
+    public Path writeHugeFile(String name, long size) throws IOException {
+        final var path = root.resolve(name);
+        final var chunk = randomBytes(Git.STREAM_BUFFER_SIZE);
+
+        try (final var outputStream = Files.newOutputStream(path)) {
+            for (var written = 0L; written < size; written += chunk.length) {
+                outputStream.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+            }
+        }
+
+        return path;
+    }
+
+    public Path createWorkTree(String name, int depth, int width, int filesPerDirectory, int fileSize) throws IOException {
+        final var directory = root.resolve(name);
+        createWorkTree(directory, depth, width, filesPerDirectory, fileSize);
+
+        return directory;
+    }
+
+    private void createWorkTree(Path directory, int depth, int width, int filesPerDirectory, int fileSize) throws IOException {
+        Files.createDirectories(directory);
+
+        for (var index = 0; index < filesPerDirectory; ++index) {
+            Files.write(directory.resolve("file-%d.txt".formatted(index)), randomBytes(fileSize));
+        }
+
+        if (depth == 0) {
+            return;
+        }
+
+        for (var index = 0; index < width; ++index) {
+            createWorkTree(directory.resolve("dir-%d".formatted(index)), depth - 1, width, filesPerDirectory, fileSize);
+        }
+    }
+
+    public SyntheticPack createDeltaChainPack(int chainLength, int baseSize, int growth) throws IOException, NoSuchAlgorithmException {
+        return SyntheticPack.deltaChain(randomBytes(baseSize), chainLength, growth, random);
+    }
+
+    public SyntheticPack installDeltaChainPack(int chainLength, int baseSize, int growth) throws IOException, DataFormatException, NoSuchAlgorithmException {
+        final var pack = createDeltaChainPack(chainLength, baseSize, growth);
+
+        Files.createDirectories(git.getPackDirectory());
+        final var packPath = Files.createTempFile(git.getPackDirectory(), "tmp_pack_", "");
+        Files.write(packPath, pack.bytes());
+
+        git.indexPack(packPath);
+
+        return pack;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (final Stream<Path> paths = Files.walk(root)) {
+            for (final var path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public static SyntheticRepository create() throws IOException {
+        return create("");
+    }
+
+    public static SyntheticRepository create(String config) throws IOException {
+        final var root = Files.createTempDirectory("git-benchmark-");
+
+        final var git = Git.init(root);
+        Files.writeString(git.getConfigFile(), config, StandardOpenOption.APPEND);
+
+        return new SyntheticRepository(root, Git.open(root));
+    }
+
+}
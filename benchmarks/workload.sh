@@ -0,0 +1,198 @@
+#!/bin/bash
+#
+# End-to-end workload behind the before/after table in README.md.
+#
+#   benchmarks/workload.sh <classes-dir> <label>
+#
+# <classes-dir> is the compiled output of the tree to measure, e.g. target/classes after `mvn -B compile`. To measure
+# the original sources, check out the `baseline` commit into a worktree and compile it there:
+#
+#   git worktree add /tmp/baseline 8761da6 && (cd /tmp/baseline && mvn -B -q compile)
+#   benchmarks/workload.sh /tmp/baseline/target/classes before
+#   benchmarks/workload.sh target/classes after
+#
+# Needs java, mvn, git and python3 on the PATH. The fixture repository and the 64 MiB blob are generated once under
+# $WORKLOAD_DIR (default /tmp/java-git-workload) and reused by later runs. RUNS (default 7) sets how many times each
+# command runs, and PORT (default 8765) where the fixture is served.
+
+set -euo pipefail
+
+if [ $# -ne 2 ]; then
+    echo "usage: $0 <classes-dir> <label>" >&2
+    exit 1
+fi
+
+CLASSES=$(realpath "$1")
+LABEL=$2
+RUNS=${RUNS:-7}
+PORT=${PORT:-8765}
+WORKLOAD_DIR=${WORKLOAD_DIR:-/tmp/java-git-workload}
+PROJECT_DIR=$(realpath "$(dirname "$0")/..")
+
+export GIT_AUTHOR_NAME=bench GIT_AUTHOR_EMAIL=bench@example.com
+export GIT_COMMITTER_NAME=bench GIT_COMMITTER_EMAIL=bench@example.com
+
+FIXTURE=$WORKLOAD_DIR/bench
+BLOB=$WORKLOAD_DIR/big.bin
+RUN_DIR=$WORKLOAD_DIR/runs/$LABEL
+
+generate_fixture() {
+    rm -rf "$FIXTURE"
+    mkdir -p "$FIXTURE"
+    git -C "$FIXTURE" init -q -b master
+    git -C "$FIXTURE" config gc.auto 0
+
+    # 40 directories of 50 files with 200 lines each, then 150 commits that each rewrite one line in 20 random files.
+    (cd "$FIXTURE" && python3 - <<'EOF'
+import os, random
+random.seed(1)
+for d in range(40):
+    os.makedirs(f"d{d}", exist_ok=True)
+    for f in range(50):
+        with open(f"d{d}/f{f}.txt", "w") as file:
+            file.write("".join(f"line {i} {random.random()}\n" for i in range(200)))
+EOF
+    )
+    git -C "$FIXTURE" add -A
+    git -C "$FIXTURE" commit -qm c0
+
+    for commit in $(seq 1 150); do
+        (cd "$FIXTURE" && python3 - "$commit" <<'EOF'
+import random, sys
+random.seed(int(sys.argv[1]))
+for _ in range(20):
+    path = f"d{random.randrange(40)}/f{random.randrange(50)}.txt"
+    with open(path) as file:
+        lines = file.read().split("\n")
+    lines[random.randrange(len(lines))] = "x" + str(random.random())
+    with open(path, "w") as file:
+        file.write("\n".join(lines))
+EOF
+        )
+        git -C "$FIXTURE" commit -qam "c$commit"
+    done
+
+    git -C "$FIXTURE" gc -q
+}
+
+serve_fixture() {
+    # Smart HTTP stand-in for git-http-backend: protocol v2 when the client asks for it, v0 otherwise.
+    python3 - "$PORT" "$WORKLOAD_DIR" <<'EOF' &
+import http.server, os, subprocess, sys
+
+ROOT = sys.argv[2]
+
+class Handler(http.server.BaseHTTPRequestHandler):
+
+    def run(self, suffix, *args, body=None):
+        repository = ROOT + self.path.split("?")[0][:-len(suffix)]
+        environment = dict(os.environ)
+        environment.pop("GIT_PROTOCOL", None)
+        if self.headers.get("Git-Protocol"):
+            environment["GIT_PROTOCOL"] = self.headers["Git-Protocol"]
+        output = subprocess.run(["git", "upload-pack", "--stateless-rpc", *args, repository], env=environment, input=body, capture_output=True).stdout
+        return output, "GIT_PROTOCOL" in environment
+
+    def reply(self, content_type, data):
+        self.send_response(200)
+        self.send_header("Content-Type", content_type)
+        self.send_header("Content-Length", str(len(data)))
+        self.end_headers()
+        self.wfile.write(data)
+
+    def do_GET(self):
+        output, version2 = self.run("/info/refs", "--advertise-refs")
+        if not version2:
+            output = b"001e# service=git-upload-pack\n0000" + output
+        self.reply("application/x-git-upload-pack-advertisement", output)
+
+    def do_POST(self):
+        body = self.rfile.read(int(self.headers["Content-Length"]))
+        output, _ = self.run("/git-upload-pack", body=body)
+        self.reply("application/x-git-upload-pack-result", output)
+
+    def log_message(self, *args):
+        pass
+
+http.server.ThreadingHTTPServer(("127.0.0.1", int(sys.argv[1])), Handler).serve_forever()
+EOF
+    SERVER_PID=$!
+    trap 'kill $SERVER_PID' EXIT
+
+    for _ in $(seq 1 50); do
+        if git ls-remote "http://127.0.0.1:$PORT/bench" HEAD > /dev/null 2>&1; then
+            return
+        fi
+
+        sleep 0.1
+    done
+
+    echo "fixture server did not start on port $PORT" >&2
+    exit 1
+}
+
+mkdir -p "$WORKLOAD_DIR"
+
+if [ ! -d "$FIXTURE/.git" ]; then
+    generate_fixture
+fi
+
+if [ ! -f "$BLOB" ]; then
+    head -c 64000000 /dev/urandom > "$BLOB"
+fi
+
+if [ ! -f "$WORKLOAD_DIR/classpath.txt" ]; then
+    (cd "$PROJECT_DIR" && mvn -B -q dependency:build-classpath -Dmdep.outputFile="$WORKLOAD_DIR/classpath.txt")
+fi
+
+CLASSPATH="$CLASSES:$(cat "$WORKLOAD_DIR/classpath.txt")"
+
+serve_fixture
+
+java_git() {
+    java -cp "$CLASSPATH" Main "$@"
+}
+
+# Prints the wall-clock time of a command in milliseconds.
+measure() {
+    local start
+    start=$(date +%s%N)
+    "$@" > /dev/null 2>&1 || echo "failed: $*" >&2
+    echo $(( ($(date +%s%N) - start) / 1000000 ))
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+rm -rf "$RUN_DIR"
+mkdir -p "$RUN_DIR"
+
+clone=$(for _ in $(seq "$RUNS"); do
+    rm -rf "$RUN_DIR/clone"
+    measure java_git clone "http://127.0.0.1:$PORT/bench" "$RUN_DIR/clone"
+done | median)
+
+hash_object=$(for _ in $(seq "$RUNS"); do
+    rm -rf "$RUN_DIR/hash-object"
+    mkdir "$RUN_DIR/hash-object"
+    cd "$RUN_DIR/hash-object"
+    java_git init > /dev/null
+    cp "$BLOB" big.bin
+    measure java_git hash-object -w big.bin
+done | median)
+
+write_tree=$(for _ in $(seq "$RUNS"); do
+    rm -rf "$RUN_DIR/write-tree"
+    mkdir "$RUN_DIR/write-tree"
+    cd "$RUN_DIR/write-tree"
+    java_git init > /dev/null
+    cp -r "$FIXTURE"/d* .
+    measure java_git write-tree
+done | median)
+
+write_tree_rerun=$(cd "$RUN_DIR/write-tree" && for _ in $(seq "$RUNS"); do
+    measure java_git write-tree
+done | median)
+
+echo "$LABEL: clone=${clone}ms hash-object=${hash_object}ms write-tree=${write_tree}ms write-tree-rerun=${write_tree_rerun}ms"
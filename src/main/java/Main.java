@@ -1,31 +1,104 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.zip.DataFormatException;
 
 import git.Git;
+import git.daemon.DaemonClient;
+import git.daemon.GitDaemon;
 import git.domain.AuthorSignature;
+import git.domain.ObjectId;
+import git.domain.RawObject;
+import git.graph.RevWalk;
+import git.protocol.FetchOptions;
+import git.util.ZlibPool;
 
 public class Main {
 
     public static final Path HERE = Paths.get(".");
+    public static final String THREADS_OPTION = "--threads=";
+    public static final String MAX_COUNT_OPTION = "--max-count=";
+    public static final String TOPO_ORDER_OPTION = "--topo-order";
+    public static final String TRACE_ZLIB_VARIABLE = "GIT_TRACE_ZLIB";
+    public static final String SOCKET_OPTION = "--socket=";
+    public static final String STOP_OPTION = "--stop";
+    public static final String BATCH_OPTION = "--batch";
+    public static final String BATCH_CHECK_OPTION = "--batch-check";
+    public static final String DEPTH_FLAG = "--depth";
+    public static final String DEPTH_OPTION = "--depth=";
+    public static final String FILTER_OPTION = "--filter=";
+    public static final Set<String> DAEMON_COMMANDS = Set.of("cat-file", "hash-object", "ls-tree", "write-tree", "commit-tree");
+
+    private static Git repository;
 
     public static void main(String[] args) throws IOException, NoSuchAlgorithmException, DataFormatException {
         final var command = args[0];
 
+        if (DAEMON_COMMANDS.contains(command) && !isBatch(args) && System.getenv(GitDaemon.SOCKET_VARIABLE) != null) {
+            System.exit(DaemonClient.run(GitDaemon.getDefaultSocketPath(), HERE, args, System.out, System.err));
+        }
+
         switch (command) {
             case "init" -> init();
-            case "cat-file" -> catFile(args[2]);
-            case "hash-object" -> hashFile(args[2]);
-            case "ls-tree" -> lsTree(args[2]);
-            case "write-tree" -> writeTree();
-            case "commit-tree" -> commitTree(args[1], args[3], args[5]);
-            case "clone" -> clone(args[1], args[2]);
+            case "cat-file" -> catFile(args);
+            case "hash-object", "ls-tree", "write-tree", "commit-tree" -> execute(open(), HERE, args, System.out);
+            case "log" -> log(Arrays.copyOfRange(args, 1, args.length));
+            case "rev-list" -> revList(Arrays.copyOfRange(args, 1, args.length));
+            case "commit-graph" -> commitGraph(args[1]);
+            case "clone" -> clone(Arrays.copyOfRange(args, 1, args.length));
+            case "fetch" -> fetch(args.length > 1 ? args[1] : Git.DEFAULT_REMOTE);
+            case "daemon" -> daemon(Arrays.copyOfRange(args, 1, args.length));
             default -> System.out.println("Unknown command: " + command);
         }
+
+        if (System.getenv(TRACE_ZLIB_VARIABLE) != null) {
+            System.err.println(ZlibPool.SHARED.metrics().format());
+
+            if (repository != null) {
+                System.err.println(repository.getObjectCache().metrics().format());
+            }
+        }
+    }
+
+    private static Git open() throws IOException {
+        return repository = Git.open(HERE);
+    }
+
+    public static void execute(Git git, Path root, String[] args, PrintStream outputStream) throws IOException, NoSuchAlgorithmException {
+        final var command = args[0];
+
+        if (isBatch(args)) {
+            throw new UnsupportedOperationException("cat-file %s reads standard input and is not served by the daemon".formatted(args[1]));
+        }
+
+        switch (command) {
+            case "cat-file" -> catFile(git, outputStream, args[2]);
+            case "hash-object" -> hashFile(git, outputStream, root.resolve(args[2]));
+            case "ls-tree" -> lsTree(git, outputStream, args[2]);
+            case "write-tree" -> writeTree(git, outputStream, root, args.length > 1 ? parseThreads(args[1]) : 1);
+            case "commit-tree" -> commitTree(git, outputStream, args[1], args[3], args[5]);
+            default -> throw new IllegalArgumentException("unsupported daemon command: " + command);
+        }
+
+        outputStream.flush();
     }
 
     public static void init() throws IOException {
@@ -33,49 +106,280 @@ public class Main {
         System.out.println("Initialized git directory");
     }
 
-    public static void catFile(String hash) throws IOException {
-        final var git = Git.open(HERE);
-        final var blob = git.readBlob(hash);
+    public static void catFile(String[] args) throws IOException, NoSuchAlgorithmException {
+        final var git = open();
 
-        System.out.write(blob.data());
+        if (isBatch(args)) {
+            catFileBatch(git, System.in, new FileOutputStream(FileDescriptor.out), BATCH_OPTION.equals(args[1]));
+        } else {
+            execute(git, HERE, args, System.out);
+        }
     }
 
-    public static void hashFile(String path) throws IOException, NoSuchAlgorithmException {
-        final var git = Git.open(HERE);
-        final var hash = git.writeBlob(Paths.get(path));
+    public static void catFileBatch(Git git, InputStream inputStream, OutputStream outputStream, boolean withContent) throws IOException {
+        final var reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), Git.STREAM_BUFFER_SIZE);
+        final var bufferedOutputStream = new BufferedOutputStream(outputStream, Git.STREAM_BUFFER_SIZE);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final var id = resolveBatchObject(git, line);
+            final var object = id != null ? readBatchObject(git, id) : null;
+
+            if (object == null) {
+                bufferedOutputStream.write((line + " missing\n").getBytes(StandardCharsets.UTF_8));
+            } else {
+                final var content = object.content();
+                bufferedOutputStream.write("%s %s %d\n".formatted(id.name(), object.type().getName(), content.length).getBytes(StandardCharsets.US_ASCII));
+
+                if (withContent) {
+                    bufferedOutputStream.write(content);
+                    bufferedOutputStream.write('\n');
+                }
+            }
+
+            if (!reader.ready()) {
+                bufferedOutputStream.flush();
+            }
+        }
 
-        System.out.println(hash);
+        bufferedOutputStream.flush();
     }
 
-    public static void lsTree(String hash) throws IOException, NoSuchAlgorithmException {
-        final var git = Git.open(HERE);
-        final var tree = git.readTree(hash);
+    private static ObjectId resolveBatchObject(Git git, String name) throws IOException {
+        try {
+            return ObjectId.fromString(git.resolveRevision(name));
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
 
-        for (final var entry : tree.entries()) {
-            System.out.println(entry.name());
+    private static RawObject readBatchObject(Git git, ObjectId id) throws IOException {
+        try {
+            return git.readRawObject(id.name());
+        } catch (FileNotFoundException exception) {
+            return null;
         }
     }
 
-    public static void writeTree() throws IOException, NoSuchAlgorithmException {
-        final var git = Git.open(HERE);
-        final var hash = git.writeTree(HERE);
+    public static boolean isBatch(String[] args) {
+        return args[0].equals("cat-file") && args.length > 1 && (BATCH_OPTION.equals(args[1]) || BATCH_CHECK_OPTION.equals(args[1]));
+    }
+
+    public static void catFile(Git git, PrintStream outputStream, String hash) throws IOException {
+        final var blob = git.readBlob(hash);
+
+        outputStream.write(blob.data());
+    }
+
+    public static void hashFile(Git git, PrintStream outputStream, Path path) throws IOException, NoSuchAlgorithmException {
+        final var hash = git.writeBlob(path);
+
+        outputStream.println(hash);
+    }
+
+    public static void lsTree(Git git, PrintStream outputStream, String hash) throws IOException, NoSuchAlgorithmException {
+        final var iterator = git.readTreeIterator(hash);
+
+        final var bufferedOutputStream = new BufferedOutputStream(outputStream);
+        while (iterator.next()) {
+            iterator.writeNameTo(bufferedOutputStream);
+            bufferedOutputStream.write('\n');
+        }
 
-        System.out.println(hash);
+        bufferedOutputStream.flush();
     }
 
-    public static void commitTree(String treeHash, String parentHash, String message) throws IOException, NoSuchAlgorithmException {
-        final var git = Git.open(HERE);
+    public static void writeTree(Git git, PrintStream outputStream, Path root, int threads) throws IOException, NoSuchAlgorithmException {
+        final var hash = git.writeTree(root, threads);
+
+        outputStream.println(hash);
+    }
 
+    public static void commitTree(Git git, PrintStream outputStream, String treeHash, String parentHash, String message) throws IOException, NoSuchAlgorithmException {
         final var enzo = new AuthorSignature("Caceresenzo", "caceresenzo1502@gmail.com", ZonedDateTime.now());
         final var hash = git.writeCommit(treeHash, parentHash, enzo, message);
 
-        System.out.println(hash);
+        outputStream.println(hash);
+    }
+
+    public static void log(String[] args) throws IOException {
+        final var git = open();
+        final var query = RevisionQuery.parse(args);
+
+        final var outputStream = new PrintStream(new BufferedOutputStream(System.out), false);
+        var first = true;
+
+        for (final var commit : query.walk(git)) {
+            if (!first) {
+                outputStream.println();
+            }
+
+            first = false;
+
+            final var hash = commit.id().name();
+            final var view = git.readCommitView(hash);
+            final var author = view.author();
+
+            outputStream.println("commit " + hash);
+            if (commit.parents().size() > 1) {
+                outputStream.println("Merge: " + commit.parents().stream().map((parent) -> parent.name().substring(0, 7)).collect(Collectors.joining(" ")));
+            }
+
+            outputStream.println("Author: %s <%s>".formatted(author.login(), author.email()));
+            outputStream.println("Date:   " + author.when().format(AuthorSignature.LOG_DATE_FORMATTER));
+            outputStream.println();
+
+            for (final var line : view.message().split("\n", -1)) {
+                outputStream.println(line.isEmpty() ? "" : "    " + line);
+            }
+        }
+
+        outputStream.flush();
+    }
+
+    public static void revList(String[] args) throws IOException {
+        final var git = open();
+        final var query = RevisionQuery.parse(args);
+
+        final var outputStream = new PrintStream(new BufferedOutputStream(System.out), false);
+        for (final var commit : query.walk(git)) {
+            outputStream.println(commit.id().name());
+        }
+
+        outputStream.flush();
+    }
+
+    public static void commitGraph(String subCommand) throws IOException, NoSuchAlgorithmException {
+        if (!"write".equals(subCommand)) {
+            throw new IllegalArgumentException("unknown commit-graph command: " + subCommand);
+        }
+
+        final var git = open();
+
+        final var count = git.writeCommitGraph(git.readCommitTips());
+
+        System.out.println("wrote %d commits into the commit-graph".formatted(count));
+    }
+
+    public static int parseThreads(String argument) {
+        if (!argument.startsWith(THREADS_OPTION)) {
+            throw new IllegalArgumentException("unknown option: " + argument);
+        }
+
+        final var threads = Integer.parseInt(argument.substring(THREADS_OPTION.length()));
+        if (threads == 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+
+        return threads;
     }
 
-    public static void clone(String uri, String path) throws IOException, NoSuchAlgorithmException, DataFormatException {
-        Git.clone(URI.create(uri), Paths.get(path));
+    public static void clone(String[] args) throws IOException, NoSuchAlgorithmException, DataFormatException {
+        final var positionals = new ArrayList<String>();
+        var threads = Runtime.getRuntime().availableProcessors();
+        var depth = 0;
+        String filter = null;
+
+        for (var index = 0; index < args.length; ++index) {
+            final var argument = args[index];
+
+            if (argument.startsWith(THREADS_OPTION)) {
+                threads = parseThreads(argument);
+            } else if (argument.startsWith(DEPTH_OPTION)) {
+                depth = Integer.parseInt(argument.substring(DEPTH_OPTION.length()));
+            } else if (argument.equals(DEPTH_FLAG) && index + 1 < args.length) {
+                depth = Integer.parseInt(args[++index]);
+            } else if (argument.startsWith(FILTER_OPTION)) {
+                filter = argument.substring(FILTER_OPTION.length());
+            } else if (argument.startsWith("-")) {
+                throw new IllegalArgumentException("unknown option: " + argument);
+            } else {
+                positionals.add(argument);
+            }
+        }
+
+        if (positionals.size() != 2) {
+            throw new IllegalArgumentException("usage: clone [--depth=<n>] [--filter=<spec>] [--threads=<n>] <uri> <path>");
+        }
+
+        repository = Git.clone(URI.create(positionals.get(0)), Paths.get(positionals.get(1)), threads, new FetchOptions(depth, filter, List.of()));
 
         System.out.println("Cloned git repository");
     }
 
-}
\ No newline at end of file
+    public static void fetch(String remote) throws IOException, NoSuchAlgorithmException, DataFormatException {
+        final var git = open();
+
+        final var updated = remote.contains("://")
+                ? git.fetch(URI.create(remote), Git.DEFAULT_REMOTE)
+                : git.fetch(remote);
+
+        for (final var entry : updated.entrySet()) {
+            System.out.println("%s %s".formatted(entry.getValue(), entry.getKey()));
+        }
+    }
+
+    public static void daemon(String[] args) throws IOException {
+        var socketPath = GitDaemon.getDefaultSocketPath();
+        var stop = false;
+
+        for (final var argument : args) {
+            if (argument.startsWith(SOCKET_OPTION)) {
+                socketPath = Paths.get(argument.substring(SOCKET_OPTION.length()));
+            } else if (argument.equals(STOP_OPTION)) {
+                stop = true;
+            } else {
+                throw new IllegalArgumentException("unknown option: " + argument);
+            }
+        }
+
+        if (stop) {
+            System.exit(DaemonClient.run(socketPath, HERE, new String[] { GitDaemon.STOP_REQUEST }, System.out, System.err));
+        }
+
+        System.err.println("Listening on " + socketPath);
+        new GitDaemon(socketPath, Main::execute).serve();
+    }
+
+    public static record RevisionQuery(
+            List<String> revisions,
+            RevWalk.Order order,
+            int limit
+    ) {
+
+        public List<RevWalk.RevCommit> walk(Git git) throws IOException {
+            final var starts = new ArrayList<ObjectId>(revisions.size());
+            for (final var revision : revisions) {
+                starts.add(ObjectId.fromString(git.resolveCommit(revision)));
+            }
+
+            return git.newRevWalk().walk(starts, order, limit);
+        }
+
+        public static RevisionQuery parse(String[] args) {
+            final var revisions = new ArrayList<String>();
+            var order = RevWalk.Order.DATE;
+            var limit = Integer.MAX_VALUE;
+
+            for (final var argument : args) {
+                if (argument.startsWith(MAX_COUNT_OPTION)) {
+                    limit = Integer.parseInt(argument.substring(MAX_COUNT_OPTION.length()));
+                } else if (argument.equals(TOPO_ORDER_OPTION)) {
+                    order = RevWalk.Order.TOPOLOGICAL;
+                } else if (argument.startsWith("-")) {
+                    throw new IllegalArgumentException("unknown option: " + argument);
+                } else {
+                    revisions.add(argument);
+                }
+            }
+
+            if (revisions.isEmpty()) {
+                revisions.add("HEAD");
+            }
+
+            return new RevisionQuery(revisions, order, limit);
+        }
+
+    }
+
+}
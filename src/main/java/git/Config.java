@@ -0,0 +1,158 @@
+package git;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+public record Config(
+        Map<String, String> values
+) {
+
+    public static final String CORE = "core";
+    public static final String COMPRESSION = "compression";
+    public static final String LOOSE_COMPRESSION = "loosecompression";
+    public static final String JAVA_GIT = "java-git";
+    public static final String OBJECT_CACHE_LIMIT = "objectcachelimit";
+    public static final String BLOB_CACHE_LIMIT = "blobcachelimit";
+    public static final String REMOTE = "remote";
+    public static final String URL = "url";
+    public static final String PROMISOR = "promisor";
+    public static final String PARTIAL_CLONE_FILTER = "partialclonefilter";
+    public static final String EXTENSIONS = "extensions";
+    public static final String PARTIAL_CLONE = "partialclone";
+
+    public static final int DEFAULT_LOOSE_COMPRESSION = Deflater.BEST_SPEED;
+
+    public String get(String section, String key) {
+        return values.get(toKey(section, key));
+    }
+
+    public int getInt(String section, String key, int defaultValue) {
+        final var value = get(section, key);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException exception) {
+            throw new IllegalStateException("bad numeric config value '%s' for '%s'".formatted(value, toKey(section, key)), exception);
+        }
+    }
+
+    public long getSize(String section, String key, long defaultValue) {
+        final var value = get(section, key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+
+        final var unit = switch (Character.toLowerCase(value.charAt(value.length() - 1))) {
+            case 'k' -> 1024L;
+            case 'm' -> 1024L * 1024;
+            case 'g' -> 1024L * 1024 * 1024;
+            default -> 1L;
+        };
+
+        final var digits = unit == 1 ? value : value.substring(0, value.length() - 1);
+
+        try {
+            return Math.multiplyExact(Long.parseLong(digits), unit);
+        } catch (NumberFormatException | ArithmeticException exception) {
+            throw new IllegalStateException("bad numeric config value '%s' for '%s'".formatted(value, toKey(section, key)), exception);
+        }
+    }
+
+    public int getCompressionLevel() {
+        return checkCompressionLevel(COMPRESSION, getInt(CORE, COMPRESSION, Deflater.DEFAULT_COMPRESSION));
+    }
+
+    public int getLooseCompressionLevel() {
+        if (get(CORE, LOOSE_COMPRESSION) != null) {
+            return checkCompressionLevel(LOOSE_COMPRESSION, getInt(CORE, LOOSE_COMPRESSION, DEFAULT_LOOSE_COMPRESSION));
+        }
+
+        if (get(CORE, COMPRESSION) != null) {
+            return getCompressionLevel();
+        }
+
+        return DEFAULT_LOOSE_COMPRESSION;
+    }
+
+    private static int checkCompressionLevel(String key, int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalStateException("bad zlib compression level %d for core.%s".formatted(level, key));
+        }
+
+        return level;
+    }
+
+    private static String toKey(String section, String key) {
+        final var dot = section.indexOf('.');
+        final var name = dot == -1
+                ? section.toLowerCase(Locale.ROOT)
+                : section.substring(0, dot).toLowerCase(Locale.ROOT) + section.substring(dot);
+
+        return name + "." + key.toLowerCase(Locale.ROOT);
+    }
+
+    public static Config read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new Config(Collections.emptyMap());
+        }
+
+        return parse(Files.readString(path));
+    }
+
+    public static Config parse(String content) {
+        final var values = new HashMap<String, String>();
+        var section = "";
+
+        for (var line : content.split("\n")) {
+            line = line.strip();
+
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith(";")) {
+                continue;
+            }
+
+            if (line.startsWith("[")) {
+                final var end = line.indexOf(']');
+                if (end == -1) {
+                    throw new IllegalStateException("bad config section: " + line);
+                }
+
+                section = parseSection(line.substring(1, end).strip());
+                continue;
+            }
+
+            final var equals = line.indexOf('=');
+            final var key = equals == -1 ? line : line.substring(0, equals).strip();
+            final var value = equals == -1 ? "true" : line.substring(equals + 1).strip();
+
+            values.put(toKey(section, key), value);
+        }
+
+        return new Config(Collections.unmodifiableMap(values));
+    }
+
+    private static String parseSection(String header) {
+        final var quote = header.indexOf('"');
+        if (quote == -1) {
+            return header.toLowerCase(Locale.ROOT);
+        }
+
+        final var end = header.lastIndexOf('"');
+        if (end == quote) {
+            throw new IllegalStateException("bad config section: " + header);
+        }
+
+        final var subsection = header.substring(quote + 1, end).replace("\\\"", "\"").replace("\\\\", "\\");
+
+        return header.substring(0, quote).strip() + "." + subsection;
+    }
+
+}
@@ -1,25 +1,49 @@
 package git;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.zip.DataFormatException;
 import java.util.zip.DeflaterOutputStream;
@@ -29,33 +53,81 @@ import git.domain.AuthorSignature;
 import git.domain.Blob;
 import git.domain.Commit;
 import git.domain.GitObject;
+import git.domain.ObjectId;
 import git.domain.ObjectType;
+import git.domain.RawObject;
+import git.domain.Reference;
 import git.domain.Tree;
+import git.domain.commit.CommitView;
 import git.domain.tree.TreeEntry;
 import git.domain.tree.TreeEntryMode;
-import git.pack.DeltaInstruction;
-import git.pack.PackObject;
+import git.domain.tree.TreeEntryModeType;
+import git.domain.tree.TreeIterator;
+import git.graph.CommitGraph;
+import git.graph.RevWalk;
+import git.index.CacheTree;
+import git.index.FileStat;
+import git.index.Index;
+import git.index.IndexEntry;
+import git.index.IndexSerializer;
+import git.index.WorkTreeStat;
+import git.pack.PackFile;
+import git.pack.PackIndex;
+import git.pack.PackIndexer;
 import git.pack.PackParser;
+import git.pack.ThinPackCompleter;
+import git.protocol.FetchOptions;
 import git.protocol.GitClient;
-import git.util.Platform;
+import git.protocol.Negotiator;
+import git.protocol.ShallowUpdate;
+import git.util.ZlibPool;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class Git {
 
     public static final int HASH_BYTES_LENGTH = 20;
     public static final int HASH_STRING_LENGTH = 40;
+    public static final int STREAM_BUFFER_SIZE = 64 * 1024;
 
     public static final HexFormat HEX = HexFormat.of();
+    public static final String SYMBOLIC_REFERENCE_PREFIX = "ref: ";
+    public static final int MAX_SYMBOLIC_REFERENCE_DEPTH = 5;
+    public static final int MAX_TAG_DEPTH = 16;
+    public static final int MAX_OBJECT_HEADER_LENGTH = 32;
+    public static final String HEAD = "HEAD";
+    public static final String BRANCH_PREFIX = "refs/heads/";
+    public static final String REMOTES_PREFIX = "refs/remotes/";
+    public static final String TAG_PREFIX = "refs/tags/";
+    public static final String PACKED_REFERENCES_HEADER = "# pack-refs with: peeled fully-peeled sorted \n";
+    public static final String DEFAULT_REMOTE = "origin";
+    public static final String PROMISOR_EXTENSION = ".promisor";
+    public static final String LOCK_EXTENSION = ".lock";
     public static final Set<Path> FORBIDDEN_DIRECTORIES = Set.of(
             Paths.get(".git")
     );
 
-    private static final byte[] SPACE_BYTES = {' '};
-    private static final byte[] NULL_BYTES = {0};
+    private static final String TEMPORARY_OBJECT_PREFIX = "tmp_obj_" + Long.toHexString(ThreadLocalRandom.current().nextLong()) + "_";
+    private static final AtomicLong TEMPORARY_OBJECT_COUNTER = new AtomicLong();
+    private static final ThreadLocal<ByteBuffer> TRANSFER_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(STREAM_BUFFER_SIZE));
 
     private final Path root;
+    private volatile List<PackFile> packs;
+
+    @Getter(lazy = true)
+    private final LooseObjectCache looseObjectCache = new LooseObjectCache(getObjectsDirectory());
+
+    @Getter(lazy = true)
+    private final Config config = readConfig();
+
+    @Getter(lazy = true)
+    private final ObjectCache objectCache = new ObjectCache(
+            getConfig().getSize(Config.JAVA_GIT, Config.OBJECT_CACHE_LIMIT, ObjectCache.DEFAULT_OBJECT_LIMIT),
+            getConfig().getSize(Config.JAVA_GIT, Config.BLOB_CACHE_LIMIT, ObjectCache.DEFAULT_BLOB_LIMIT)
+    );
 
     public Path getDotGit() {
         return root.resolve(".git");
@@ -65,6 +137,10 @@ public class Git {
         return getDotGit().resolve("objects");
     }
 
+    public Path getPackDirectory() {
+        return getObjectsDirectory().resolve("pack");
+    }
+
     public Path getRefsDirectory() {
         return getDotGit().resolve("refs");
     }
@@ -73,10 +149,35 @@ public class Git {
         return getDotGit().resolve("HEAD");
     }
 
+    public Path getIndexFile() {
+        return getDotGit().resolve("index");
+    }
+
+    public Path getPackedRefsFile() {
+        return getDotGit().resolve("packed-refs");
+    }
+
+    public Path getCommitGraphFile() {
+        return getObjectsDirectory().resolve("info").resolve("commit-graph");
+    }
+
     public Path getConfigFile() {
         return getDotGit().resolve("config");
     }
 
+    public Path getFetchHeadFile() {
+        return getDotGit().resolve("FETCH_HEAD");
+    }
+
+    public Path getShallowFile() {
+        return getDotGit().resolve("shallow");
+    }
+
+    @SneakyThrows
+    private Config readConfig() {
+        return Config.read(getConfigFile());
+    }
+
     //    ---------------------------------ALL INIT RELATED CODE IS BELOW---------------------------------
     public static Git init(Path root) throws IOException {
         final var git = new Git(root);
@@ -95,7 +196,7 @@ public class Git {
 
         final var config = git.getConfigFile();
         Files.createFile(config);
-        Files.write(config, ("[core]\n        autocrlf = false").getBytes());
+        Files.write(config, ("[core]\n        autocrlf = false\n").getBytes());
 
         return git;
     }
@@ -116,10 +217,86 @@ public class Git {
 //    ---------------------------------ALL BLOB RELATED CODE IS BELOW---------------------------------
 
     public String writeBlob(Path path) throws IOException, NoSuchAlgorithmException {
-        final var bytes = Files.readAllBytes(path);
-        final var blob = new Blob(bytes);
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final var size = channel.size();
+
+            if (size <= STREAM_BUFFER_SIZE) {
+                final var header = ObjectType.BLOB.serializeHeader(size);
+                final var buffer = ByteBuffer.allocate(header.length + (int) size).put(header);
+
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                    /* fill the buffer */
+                }
+
+                if (buffer.hasRemaining() || channel.read(ByteBuffer.allocate(1)) != -1) {
+                    throw new IllegalStateException("%s changed while being hashed".formatted(path));
+                }
+
+                return writeRawObject(buffer.array());
+            }
+        }
+
+        final var hash = streamBlob(path, OutputStream.nullOutputStream());
+        if (hasObject(hash)) {
+            return hash;
+        }
+
+        final var temporaryPath = resolveTemporaryObjectPath(getObjectsDirectory());
+        final var deflater = ZlibPool.SHARED.acquireDeflater(getConfig().getLooseCompressionLevel());
+        try {
+            final String writtenHash;
+            try (
+                    final var fileOutputStream = new BufferedOutputStream(newTemporaryObjectOutputStream(temporaryPath), STREAM_BUFFER_SIZE);
+                    final var outputStream = new DeflaterOutputStream(fileOutputStream, deflater, STREAM_BUFFER_SIZE);
+            ) {
+                writtenHash = streamBlob(path, outputStream);
+            }
+
+            if (!hash.equals(writtenHash)) {
+                throw new IllegalStateException("%s changed while being hashed".formatted(path));
+            }
 
-        return writeObject(blob);
+            final var objectPath = getLooseObjectPath(hash);
+
+            Files.createDirectories(objectPath.getParent());
+            Files.move(temporaryPath, objectPath, StandardCopyOption.ATOMIC_MOVE);
+            getLooseObjectCache().add(hash);
+
+            return hash;
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException exception) {
+            Files.deleteIfExists(temporaryPath);
+            throw exception;
+        } finally {
+            ZlibPool.SHARED.release(deflater);
+        }
+    }
+
+    private String streamBlob(Path path, OutputStream outputStream) throws IOException, NoSuchAlgorithmException {
+        final var digest = MessageDigest.getInstance("SHA-1");
+
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final var digestOutputStream = new DigestOutputStream(outputStream, digest);
+
+            final var size = channel.size();
+            digestOutputStream.write(ObjectType.BLOB.serializeHeader(size));
+
+            final var buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+            var written = 0L;
+
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                digestOutputStream.write(buffer.array(), 0, read);
+                buffer.clear();
+
+                written += read;
+            }
+
+            if (written != size) {
+                throw new IllegalStateException("%s changed while being hashed".formatted(path));
+            }
+        }
+
+        return HEX.formatHex(digest.digest());
     }
 
     public Blob readBlob(String hash) throws FileNotFoundException, IOException {
@@ -133,287 +310,1415 @@ public class Git {
         return readObject(ObjectType.TREE, hash);
     }
 
+    public TreeIterator readTreeIterator(String hash) throws FileNotFoundException, IOException {
+        final var object = readRawObject(hash);
+
+        if (object.type() != ObjectType.TREE) {
+            throw new IllegalArgumentException("trying to read %s as %s (%s)".formatted(object.type().getName(), ObjectType.TREE.getName(), hash));
+        }
+
+        return new TreeIterator(object.content());
+    }
+
     public String writeTree(Path root) throws IOException, NoSuchAlgorithmException {
-        final var fileNames = Files.list(root)
-                .map(Path::getFileName)
-                .filter(Predicate.not(FORBIDDEN_DIRECTORIES::contains))
-                .toList();
-
-        final var entries = new ArrayList<TreeEntry>();
-
-        for (final var fileName : fileNames) {
-            final var path = root.resolve(fileName);
-
-            String hash;
-            TreeEntryMode mode;
-
-            if (Files.isDirectory(path)) {
-                hash = writeTree(path);
-                mode = TreeEntryMode.directory();
-            } else if (Files.isRegularFile(path)) {
-                hash = writeBlob(path);
-
-                if (Platform.isWindows()) {
-                    mode = TreeEntryMode.regularFile(0644);
-                } else {
-                    final var attributes = Files.readAttributes(path, PosixFileAttributes.class);
-                    mode = TreeEntryMode.regularFile(attributes);
-                }
-            } else {
+        return writeTree(root, 1);
+    }
+
+    public String writeTree(Path root, int threads) throws IOException, NoSuchAlgorithmException {
+        final var indexed = isWorkTree(root);
+        final var state = indexed ? new WriteTreeState(readIndex(), getIndexTimestamp()) : new WriteTreeState(Index.empty(), null);
+
+        final TreeResult result;
+        if (threads <= 1) {
+            result = writeTree(root, "", state);
+        } else {
+            final var pool = new ForkJoinPool(threads);
+
+            try {
+                result = pool.invoke(new WriteTreeTask(root, "", null, state));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        if (indexed) {
+            final var entries = new ArrayList<>(state.entries());
+            Collections.sort(entries);
+
+            writeIndex(new Index(entries, result.cacheTree()));
+        }
+
+        return result.entry().hash();
+    }
+
+    private TreeResult writeTree(Path directory, String relativePath, WriteTreeState state) throws IOException, NoSuchAlgorithmException {
+        final var children = new ArrayList<TreeResult>();
+
+        for (final var fileName : listTreeFileNames(directory)) {
+            final var path = directory.resolve(fileName);
+            final var childRelativePath = resolveRelativePath(relativePath, fileName);
+            final var stat = WorkTreeStat.of(path);
+
+            if (stat == null) {
                 continue;
             }
 
-            entries.add(new TreeEntry(mode, fileName.toString(), hash));
+            if (stat.isDirectory()) {
+                children.add(writeTree(path, childRelativePath, state));
+            } else if (stat.isRegularFile()) {
+                children.add(writeTreeFile(path, childRelativePath, stat, state));
+            }
         }
 
-        Collections.sort(entries);
-        final var tree = new Tree(entries);
+        return writeTreeDirectory(relativePath, children, state);
+    }
+
+    private TreeResult writeTreeFile(Path path, String relativePath, WorkTreeStat workTreeStat, WriteTreeState state) throws IOException, NoSuchAlgorithmException {
+        final var stat = workTreeStat.stat();
+        final var mode = workTreeStat.getFileMode();
+
+        final var previous = state.findReusableEntry(relativePath, stat, mode);
+        final var hash = previous != null ? previous.hash() : writeBlob(path);
 
-        return writeObject(tree);
+        state.entries().add(new IndexEntry(stat, mode, hash, relativePath));
+
+        final var entry = new TreeEntry(mode, path.getFileName().toString(), hash);
+        return new TreeResult(entry, null, previous == null);
     }
 
+    private TreeResult writeTreeDirectory(String relativePath, List<TreeResult> children, WriteTreeState state) throws IOException, NoSuchAlgorithmException {
+        final var entries = new ArrayList<TreeEntry>(children.size());
+        final var subTrees = new ArrayList<CacheTree>();
 
-//    ---------------------------------ALL COMMIT RELATED CODE IS BELOW---------------------------------
+        var entryCount = 0;
+        var changed = false;
 
-    public Commit readCommit(String hash) throws FileNotFoundException, IOException {
-        return readObject(ObjectType.COMMIT, hash);
+        for (final var child : children) {
+            entries.add(child.entry());
+            changed |= child.changed();
+
+            final var cacheTree = child.cacheTree();
+            if (cacheTree != null) {
+                subTrees.add(cacheTree);
+                entryCount += cacheTree.entryCount();
+            } else {
+                ++entryCount;
+            }
+        }
+
+        var hash = changed ? null : state.findReusableTreeHash(relativePath, entryCount, subTrees.size());
+        if (hash == null) {
+            Collections.sort(entries);
+            hash = writeObject(new Tree(entries));
+
+            changed = true;
+        }
+
+        subTrees.sort(Comparator.comparing(CacheTree::name));
+
+        final var name = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+        final var entry = new TreeEntry(TreeEntryMode.directory(), name, hash);
+        final var cacheTree = new CacheTree(name, entryCount, hash, Collections.unmodifiableList(subTrees));
+
+        return new TreeResult(entry, cacheTree, changed);
     }
 
-    public String writeCommit(String treeHash, String parentHash, AuthorSignature author, String message) throws NoSuchAlgorithmException, IOException {
-        return writeObject(new Commit(
-                treeHash,
-                parentHash,
-                author,
-                author,
-                message
-        ));
+    private List<Path> listTreeFileNames(Path root) throws IOException {
+        try (final var stream = Files.list(root)) {
+            return stream
+                    .map(Path::getFileName)
+                    .filter(Predicate.not(FORBIDDEN_DIRECTORIES::contains))
+                    .toList();
+        }
     }
 
-//    ---------------------------------OBJECT READ RELATED CODE IS BELOW---------------------------------
+    private static String resolveRelativePath(String parent, Path fileName) {
+        if (parent.isEmpty()) {
+            return fileName.toString();
+        }
 
-    public <T extends GitObject> T readObject(ObjectType<T> type, String hash) throws FileNotFoundException, IOException {
-        final var first2 = hash.substring(0, 2);
-        final var remaining38 = hash.substring(2);
+        return parent + "/" + fileName;
+    }
 
-        final var path = getObjectsDirectory().resolve(first2).resolve(remaining38);
+    private boolean isWorkTree(Path path) {
+        return path.toAbsolutePath().normalize().equals(root.toAbsolutePath().normalize());
+    }
 
-        try (
-                final var inputStream = new FileInputStream(path.toFile());
-                final var inflaterInputStream = new InflaterInputStream(inputStream)
-        ) {
-            final var builder = new StringBuilder();
+    @SuppressWarnings("serial")
+    @RequiredArgsConstructor
+    private class WriteTreeTask extends RecursiveTask<TreeResult> {
 
-            int value;
-            while ((value = inflaterInputStream.read()) != -1 && value != ' ') {
-                builder.append((char) value);
-            }
+        private final Path path;
+        private final String relativePath;
+        private final WorkTreeStat stat;
+        private final WriteTreeState state;
 
-            final var typeString = builder.toString();
-            if (!type.getName().equals(typeString)) {
-                throw new IllegalArgumentException("trying to read %s as %s (%s)".formatted(typeString, type.getName(), hash));
+        @Override
+        @SneakyThrows
+        protected TreeResult compute() {
+            if (stat != null && stat.isRegularFile()) {
+                return writeTreeFile(path, relativePath, stat, state);
             }
 
-            builder.setLength(0);
-            while ((value = inflaterInputStream.read()) != -1 && value != 0) {
-                builder.append((char) value);
+            final var tasks = new ArrayList<WriteTreeTask>();
+            for (final var fileName : listTreeFileNames(path)) {
+                final var child = path.resolve(fileName);
+                final var childStat = WorkTreeStat.of(child);
+
+                if (childStat != null && (childStat.isDirectory() || childStat.isRegularFile())) {
+                    tasks.add(new WriteTreeTask(child, resolveRelativePath(relativePath, fileName), childStat, state));
+                }
             }
 
-            @SuppressWarnings("unused") final var length = Integer.parseInt(builder.toString());
+            invokeAll(tasks);
+
+            final var children = new ArrayList<TreeResult>(tasks.size());
+            for (final var task : tasks) {
+                children.add(task.join());
+            }
 
-            return type.deserialize(new DataInputStream(inflaterInputStream));
+            return writeTreeDirectory(relativePath, children, state);
         }
+
     }
 
-//    ---------------------------------OBJECT WRITE RELATED CODE IS BELOW---------------------------------
+    private static record TreeResult(
+            TreeEntry entry,
+            CacheTree cacheTree,
+            boolean changed
+    ) {}
+
+    private static record WriteTreeState(
+            Map<String, IndexEntry> previousEntries,
+            Map<String, CacheTree> previousTrees,
+            FileTime indexTimestamp,
+            Queue<IndexEntry> entries
+    ) {
 
-    @SuppressWarnings("unchecked")
-    public String writeObject(git.domain.GitObject object) throws IOException, NoSuchAlgorithmException {
-        final var objectType = ObjectType.byClass(object.getClass());
+        public WriteTreeState(Index previous, FileTime indexTimestamp) {
+            this(
+                    indexByPath(previous.entries()),
+                    previous.cacheTree() != null ? previous.cacheTree().flatten() : Collections.emptyMap(),
+                    indexTimestamp,
+                    new ConcurrentLinkedQueue<>()
+            );
+        }
 
-        return writeRawObject(objectType.serialize(object));
-    }
+        private static Map<String, IndexEntry> indexByPath(List<IndexEntry> entries) {
+            final var entriesByPath = HashMap.<String, IndexEntry>newHashMap(entries.size());
+            for (final var entry : entries) {
+                entriesByPath.put(entry.path(), entry);
+            }
 
-    public String writeRawObject(byte[] data) throws IOException, NoSuchAlgorithmException {
-        final var hashBytes = MessageDigest.getInstance("SHA-1").digest(data);
-        final var hash = HexFormat.of().formatHex(hashBytes);
+            return entriesByPath;
+        }
 
-        final var first2 = hash.substring(0, 2);
-        final var first2Directory = getObjectsDirectory().resolve(first2);
-        Files.createDirectories(first2Directory);
+        public IndexEntry findReusableEntry(String path, FileStat stat, TreeEntryMode mode) {
+            final var previous = previousEntries.get(path);
 
-        final var remaining38 = hash.substring(2);
-        final var path = first2Directory.resolve(remaining38);
+            if (previous == null || !previous.stat().equals(stat) || !previous.mode().equals(mode)) {
+                return null;
+            }
 
-        try (
-                final var outputStream = Files.newOutputStream(path);
-                final var deflaterOutputStream = new DeflaterOutputStream(outputStream);
-        ) {
-            deflaterOutputStream.write(data);
+            if (indexTimestamp == null || stat.isModifiedAtOrAfter(indexTimestamp)) {
+                return null;
+            }
+
+            return previous;
+        }
+
+        public String findReusableTreeHash(String path, int entryCount, int subTreeCount) {
+            final var previous = previousTrees.get(path);
+
+            if (previous == null || !previous.isValid()) {
+                return null;
+            }
+
+            if (previous.entryCount() != entryCount || previous.children().size() != subTreeCount) {
+                return null;
+            }
+
+            return previous.hash();
         }
 
-        return hash;
     }
 
 
-//    ---------------------------------ALL CLONE RELATED CODE IS BELOW---------------------------------
+//    ---------------------------------ALL INDEX RELATED CODE IS BELOW---------------------------------
 
-    public static Git clone(URI uri, Path path) throws IOException, DataFormatException, NoSuchAlgorithmException {
-        final var client = new GitClient(uri);
-        final var head = client.fetchReferences().getFirst();
-        final var pack = client.getPack(head);
+    public Index readIndex() throws IOException, NoSuchAlgorithmException {
+        final var path = getIndexFile();
+
+        if (!Files.exists(path)) {
+            return Index.empty();
+        }
 
-        final var packParser = new PackParser(ByteBuffer.wrap(pack));
-        final var objects = packParser.parse();
+        return new IndexSerializer().deserialize(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
 
-        final var git = init(path);
-        //		final var git = open(path);
+    public void writeIndex(Index index) throws IOException, NoSuchAlgorithmException {
+        final var path = getIndexFile();
+        final var lockPath = path.resolveSibling(path.getFileName() + LOCK_EXTENSION);
 
-        for (final var object : objects) {
-            if (!(object instanceof PackObject.Undeltified undeltified)) {
-                continue;
+        final var lockOutputStream = createLockFile(lockPath);
+        try {
+            try (final var outputStream = new BufferedOutputStream(lockOutputStream)) {
+                new IndexSerializer().serialize(index, outputStream);
             }
 
-            final var type = undeltified.type();
-            final var hash = git.writeRawObject(new RawObject(type, undeltified.content()));
-            System.err.println("wrote %s %s".formatted(hash, type.getName()));
+            Files.move(lockPath, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(lockPath);
         }
+    }
 
-        for (final var object : objects) {
-            if (!(object instanceof PackObject.Deltified deltified)) {
-                continue;
-            }
+    private static OutputStream createLockFile(Path lockPath) throws IOException {
+        try {
+            return Files.newOutputStream(lockPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (FileAlreadyExistsException exception) {
+            throw new IllegalStateException("unable to create %s: another process may be running".formatted(lockPath), exception);
+        }
+    }
 
-            final var baseHash = deltified.baseHash();
-            final var base = git.readRawObject(baseHash);
-            final var baseType = base.type();
+    private FileTime getIndexTimestamp() throws IOException {
+        final var path = getIndexFile();
 
-            System.err.println("apply delta %s %s".formatted(baseHash, baseType.getName()));
+        if (!Files.exists(path)) {
+            return null;
+        }
 
-            final var content = new byte[deltified.size()];
-            final var buffer = ByteBuffer.wrap(content);
+        return Files.getLastModifiedTime(path);
+    }
 
-            for (final var instruction : deltified.instructions()) {
-                if (instruction instanceof DeltaInstruction.Copy copy) {
-                    buffer.put(base.content(), copy.offset(), copy.size());
-                } else if (instruction instanceof DeltaInstruction.Insert insert) {
-                    buffer.put(insert.data());
-                } else {
-                    throw new UnsupportedOperationException("unknown instruction: " + instruction);
-                }
+//    ---------------------------------ALL COMMIT RELATED CODE IS BELOW---------------------------------
+
+    public Commit readCommit(String hash) throws FileNotFoundException, IOException {
+        return readObject(ObjectType.COMMIT, hash);
+    }
+
+    public String peelToCommit(String hash) throws FileNotFoundException, IOException {
+        for (var depth = 0; depth < MAX_TAG_DEPTH; ++depth) {
+            final var object = readRawObject(hash);
+
+            if (object.type() == ObjectType.COMMIT) {
+                return hash;
             }
 
-            if (buffer.hasRemaining()) {
-                throw new IllegalStateException("buffer is not full");
+            if (object.type() != ObjectType.TAG) {
+                return null;
             }
 
-            final var hash = git.writeRawObject(new RawObject(baseType, content));
-            System.err.println("wrote %s %s".formatted(hash, baseType.getName()));
+            hash = ObjectType.TAG.deserialize(object.content()).objectHash();
         }
 
-        final var headCommit = git.readCommit(head.hash());
-        final var headTree = git.readTree(headCommit.treeHash());
+        throw new IllegalStateException("tag chain is too deep: " + hash);
+    }
 
-        git.checkout(headTree);
+    public String resolveCommit(String revision) throws IOException {
+        final var hash = resolveRevision(revision);
 
-        return git;
+        final var commit = peelToCommit(hash);
+        if (commit == null) {
+            throw new IllegalArgumentException("%s does not point to a commit".formatted(revision));
+        }
+
+        return commit;
     }
 
-    public RawObject readRawObject(String hash) throws FileNotFoundException, IOException {
-        final var first2 = hash.substring(0, 2);
-        final var remaining38 = hash.substring(2);
+    public CommitView readCommitView(String hash) throws FileNotFoundException, IOException {
+        final var object = readRawObject(hash);
 
-        final var path = getObjectsDirectory().resolve(first2).resolve(remaining38);
+        if (object.type() != ObjectType.COMMIT) {
+            throw new IllegalArgumentException("trying to read %s as %s (%s)".formatted(object.type().getName(), ObjectType.COMMIT.getName(), hash));
+        }
 
-        try (
-                final var inputStream = new FileInputStream(path.toFile());
-                final var inflaterInputStream = new InflaterInputStream(inputStream)
-        ) {
-            final var builder = new StringBuilder();
+        return CommitView.parse(object.content());
+    }
 
-            int value;
-            while ((value = inflaterInputStream.read()) != -1 && value != ' ') {
-                builder.append((char) value);
-            }
+    public String writeCommit(String treeHash, String parentHash, AuthorSignature author, String message) throws NoSuchAlgorithmException, IOException {
+        return writeObject(new Commit(
+                treeHash,
+                parentHash,
+                author,
+                author,
+                message
+        ));
+    }
 
-            final var type = ObjectType.byName(builder.toString());
+//    ---------------------------------ALL REFERENCE RELATED CODE IS BELOW---------------------------------
 
-            builder.setLength(0);
-            while ((value = inflaterInputStream.read()) != -1 && value != 0) {
-                builder.append((char) value);
+    public String resolveRevision(String revision) throws IOException {
+        if (isHash(revision)) {
+            return revision;
+        }
+
+        if (!isValidReferenceName(revision)) {
+            throw new IllegalArgumentException("invalid revision: " + revision);
+        }
+
+        final var candidates = new ArrayList<String>();
+        if (revision.startsWith("refs/") || revision.chars().allMatch((character) -> character == '_' || (character >= 'A' && character <= 'Z'))) {
+            candidates.add(revision);
+        }
+
+        candidates.addAll(List.of("refs/" + revision, TAG_PREFIX + revision, BRANCH_PREFIX + revision, REMOTES_PREFIX + revision, REMOTES_PREFIX + revision + "/" + HEAD));
+
+        for (final var candidate : candidates) {
+            final var hash = resolveReference(candidate);
+
+            if (hash != null) {
+                return hash;
             }
+        }
 
-            final var length = Integer.parseInt(builder.toString());
-            final var content = inflaterInputStream.readNBytes(length);
+        throw new IllegalArgumentException("unknown revision: " + revision);
+    }
 
-            return new RawObject(type, content);
+    public static boolean isHash(String value) {
+        return value.length() == HASH_STRING_LENGTH && value.chars().allMatch((character) -> Character.digit(character, 16) != -1);
+    }
+
+    public static boolean isValidReferenceName(String name) {
+        if (name.isEmpty() || name.startsWith("/") || name.endsWith("/") || name.contains("..") || name.contains("\\")) {
+            return false;
         }
+
+        return name.chars().noneMatch((character) -> character < ' ' || character == 0x7f);
     }
 
-    public String writeRawObject(RawObject object) throws IOException, NoSuchAlgorithmException {
-        final var content = object.content();
-        final var lengthBytes = String.valueOf(content.length).getBytes();
+    public String resolveReference(String name) throws IOException {
+        for (var depth = 0; depth < MAX_SYMBOLIC_REFERENCE_DEPTH; ++depth) {
+            if (!isValidReferenceName(name)) {
+                throw new IllegalArgumentException("invalid reference name: " + name);
+            }
 
-        byte[] data;
-        try (
-                final var outputStream = new ByteArrayOutputStream();
-                final var dataOutputStream = new DataOutputStream(outputStream)
-        ) {
-            outputStream.write(object.type().getName().getBytes());
-            outputStream.write(SPACE_BYTES);
-            outputStream.write(lengthBytes);
-            outputStream.write(NULL_BYTES);
-            outputStream.write(content);
+            final var path = getDotGit().resolve(name);
+
+            if (!Files.isRegularFile(path)) {
+                return readPackedReferences().get(name);
+            }
+
+            final var content = Files.readString(path).trim();
+            if (!content.startsWith(SYMBOLIC_REFERENCE_PREFIX)) {
+                return parseReferenceHash(name, content);
+            }
 
-            data = outputStream.toByteArray();
+            name = content.substring(SYMBOLIC_REFERENCE_PREFIX.length());
         }
 
-        return writeRawObject(data);
+        throw new IllegalStateException("symbolic reference loop: " + name);
     }
 
-    public void checkout(Tree tree) throws FileNotFoundException, IOException {
-        checkout(tree, root);
+    private static String parseReferenceHash(String name, String content) {
+        final var hash = content.substring(0, Math.min(content.length(), HASH_STRING_LENGTH));
+
+        if (!isHash(hash) || (content.length() > HASH_STRING_LENGTH && !Character.isWhitespace(content.charAt(HASH_STRING_LENGTH)))) {
+            throw new IllegalStateException("invalid reference %s: %s".formatted(name, content.lines().findFirst().orElse("")));
+        }
+
+        return hash;
     }
 
-    public void checkout(Tree tree, Path root) throws FileNotFoundException, IOException {
-        for (final var entry : tree.entries()) {
-            switch (entry.mode().type()) {
-                case REGULAR_FILE: {
-                    final var blob = readBlob(entry.hash());
-                    final var path = root.resolve(entry.name());
+    public Map<String, String> readReferences() throws IOException {
+        final var references = new TreeMap<>(readPackedReferences());
+
+        final var refsDirectory = getRefsDirectory();
+        if (Files.isDirectory(refsDirectory)) {
+            try (final var paths = Files.walk(refsDirectory)) {
+                for (final var path : paths.filter(Files::isRegularFile).toList()) {
+                    final var name = getDotGit().relativize(path).toString().replace('\\', '/');
+                    if (name.endsWith(LOCK_EXTENSION)) {
+                        continue;
+                    }
 
-                    checkout(blob, path);
+                    final var hash = resolveReference(name);
 
-                    break;
+                    if (hash != null) {
+                        references.put(name, hash);
+                    }
                 }
+            }
+        }
+
+        return references;
+    }
 
-                case DIRECTORY: {
-                    final var subTree = readTree(entry.hash());
-                    final var subRoot = root.resolve(entry.name());
+    public Map<String, String> readPackedReferences() throws IOException {
+        final var path = getPackedRefsFile();
+        if (!Files.exists(path)) {
+            return Collections.emptyMap();
+        }
 
-                    Files.createDirectories(subRoot);
-                    checkout(subTree, subRoot);
+        final var references = new TreeMap<String, String>();
+        for (final var line : Files.readAllLines(path)) {
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("^")) {
+                continue;
+            }
 
-                    break;
-                }
+            final var parts = line.split(" ", 2);
+            references.put(parts[1], parts[0]);
+        }
+
+        return references;
+    }
+
+    public Map<String, String> readPackedPeeledObjects() throws IOException {
+        final var path = getPackedRefsFile();
+        if (!Files.exists(path)) {
+            return Collections.emptyMap();
+        }
+
+        final var peeled = new HashMap<String, String>();
+        String previous = null;
+
+        for (final var line : Files.readAllLines(path)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
 
-                default: {
-                    throw new UnsupportedOperationException("entry type: " + entry.mode().type());
+            if (line.startsWith("^")) {
+                if (previous != null) {
+                    peeled.put(previous, line.substring(1));
                 }
+            } else {
+                previous = line.split(" ", 2)[0];
             }
         }
+
+        return peeled;
     }
 
-    public void checkout(Blob blob, Path path) throws FileNotFoundException, IOException {
-        System.err.println("checkout %s".formatted(path));
+    public List<String> readCommitTips() throws IOException {
+        final var peeled = readPackedPeeledObjects();
+        final var hashes = new LinkedHashSet<String>(readReferences().values());
 
+        final var head = resolveReference(HEAD);
+        if (head != null) {
+            hashes.add(head);
+        }
+
+        final var tips = new LinkedHashSet<String>();
+        for (final var hash : hashes) {
+            final var commit = peelToCommit(peeled.getOrDefault(hash, hash));
+
+            if (commit != null) {
+                tips.add(commit);
+            }
+        }
+
+        return new ArrayList<>(tips);
+    }
+
+    public void writeReference(String name, String hash) throws IOException {
+        writeReferenceFile(name, hash + "\n");
+    }
+
+    public void writeSymbolicReference(String name, String target) throws IOException {
+        writeReferenceFile(name, SYMBOLIC_REFERENCE_PREFIX + target + "\n");
+    }
+
+    private void writeReferenceFile(String name, String content) throws IOException {
+        final var path = getDotGit().resolve(name);
+        Files.createDirectories(path.getParent());
+
+        final var lockPath = path.resolveSibling(path.getFileName() + LOCK_EXTENSION);
+        final var lockOutputStream = createLockFile(lockPath);
+        try {
+            try (final var outputStream = lockOutputStream) {
+                outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+            }
+
+            Files.move(lockPath, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(lockPath);
+        }
+    }
+
+//    ---------------------------------ALL SHALLOW RELATED CODE IS BELOW---------------------------------
+
+    public boolean isShallow() {
+        return Files.exists(getShallowFile());
+    }
+
+    public Set<ObjectId> readShallowCommits() throws IOException {
+        final var path = getShallowFile();
+        if (!Files.exists(path)) {
+            return Collections.emptySet();
+        }
+
+        final var commits = new HashSet<ObjectId>();
+        for (final var line : Files.readAllLines(path)) {
+            if (!line.isEmpty()) {
+                commits.add(ObjectId.fromString(line));
+            }
+        }
+
+        return commits;
+    }
+
+    public void updateShallowCommits(ShallowUpdate update) throws IOException {
+        if (update.isEmpty()) {
+            return;
+        }
+
+        final var commits = new TreeSet<String>();
+        for (final var commit : readShallowCommits()) {
+            commits.add(commit.name());
+        }
+
+        commits.addAll(update.shallow());
+        commits.removeAll(update.unshallow());
+
+        final var path = getShallowFile();
+        if (commits.isEmpty()) {
+            Files.deleteIfExists(path);
+            return;
+        }
+
+        final var content = new StringBuilder();
+        for (final var commit : commits) {
+            content.append(commit).append('\n');
+        }
+
+        writeReferenceFile(getDotGit().relativize(path).toString(), content.toString());
+    }
+
+//    ---------------------------------ALL COMMIT GRAPH RELATED CODE IS BELOW---------------------------------
+
+    public CommitGraph readCommitGraph() throws IOException {
+        final var path = getCommitGraphFile();
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        return CommitGraph.read(path);
+    }
+
+    public RevWalk newRevWalk() throws IOException {
+        final var shallow = readShallowCommits();
+
+        return new RevWalk(this, shallow.isEmpty() ? readCommitGraph() : null, shallow);
+    }
+
+    public int writeCommitGraph(Collection<String> tips) throws IOException, NoSuchAlgorithmException {
+        if (isShallow()) {
+            throw new IllegalStateException("commit-graph is not supported in a shallow repository");
+        }
+
+        final var walk = newRevWalk();
+
+        final var starts = new ArrayList<ObjectId>(tips.size());
+        for (final var tip : tips) {
+            final var commit = peelToCommit(tip);
+
+            if (commit != null) {
+                starts.add(ObjectId.fromString(commit));
+            }
+        }
+
+        final var entries = new ArrayList<CommitGraph.Entry>();
+        for (final var commit : walk.collectReachable(starts)) {
+            entries.add(new CommitGraph.Entry(commit.id(), commit.tree(), commit.parents(), walk.getGeneration(commit), commit.commitTime()));
+        }
+
+        final var path = getCommitGraphFile();
+        Files.createDirectories(path.getParent());
+
+        final var temporaryPath = Files.createTempFile(path.getParent(), "tmp_graph_", "");
+        try {
+            try (final var outputStream = new BufferedOutputStream(Files.newOutputStream(temporaryPath))) {
+                CommitGraph.write(entries, outputStream);
+            }
+
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+
+        return entries.size();
+    }
+
+//    ---------------------------------OBJECT READ RELATED CODE IS BELOW---------------------------------
+
+    public <T extends GitObject> T readObject(ObjectType<T> type, String hash) throws FileNotFoundException, IOException {
+        final var object = readRawObject(hash);
+
+        final var typeString = object.type().getName();
+        if (!type.getName().equals(typeString)) {
+            throw new IllegalArgumentException("trying to read %s as %s (%s)".formatted(typeString, type.getName(), hash));
+        }
+
+        return type.deserialize(object.content());
+    }
+
+    public boolean hasObject(String hash) throws IOException {
+        if (getLooseObjectCache().contains(hash)) {
+            return true;
+        }
+
+        for (final var pack : getPacks()) {
+            if (pack.contains(hash)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public RawObject readPackedRawObject(String hash) throws IOException {
+        for (final var pack : getPacks()) {
+            final var object = pack.read(hash);
+
+            if (object != null) {
+                return object;
+            }
+        }
+
+        return null;
+    }
+
+    public List<PackFile> getPacks() throws IOException {
+        var packs = this.packs;
+
+        if (packs == null) {
+            packs = reloadPacks();
+        }
+
+        return packs;
+    }
+
+    public synchronized List<PackFile> reloadPacks() throws IOException {
+        final var packs = new ArrayList<PackFile>();
+
+        final var packDirectory = getPackDirectory();
+        if (Files.isDirectory(packDirectory)) {
+            try (final var indexPaths = Files.newDirectoryStream(packDirectory, "*" + PackFile.INDEX_EXTENSION)) {
+                for (final var indexPath : indexPaths) {
+                    packs.add(PackFile.open(indexPath));
+                }
+            }
+        }
+
+        return this.packs = Collections.unmodifiableList(packs);
+    }
+
+    private RawObject readMissingRawObject(String hash) throws FileNotFoundException, IOException {
+        for (final var pack : reloadPacks()) {
+            final var object = pack.read(hash);
+
+            if (object != null) {
+                return object;
+            }
+        }
+
+        if (isPartialClone()) {
+            fetchMissingObjects(List.of(hash));
+
+            final var object = readPackedRawObject(hash);
+            if (object != null) {
+                return object;
+            }
+        }
+
+        throw new FileNotFoundException("object not found: " + hash);
+    }
+
+    public Path getLooseObjectPath(String hash) {
+        final var first2 = hash.substring(0, 2);
+        final var remaining38 = hash.substring(2);
+
+        return getObjectsDirectory().resolve(first2).resolve(remaining38);
+    }
+
+//    ---------------------------------OBJECT WRITE RELATED CODE IS BELOW---------------------------------
+
+    @SuppressWarnings("unchecked")
+    public String writeObject(git.domain.GitObject object) throws IOException, NoSuchAlgorithmException {
+        final var objectType = ObjectType.byClass(object.getClass());
+
+        return writeRawObject(objectType.serialize(object));
+    }
+
+    public String writeRawObject(byte[] data) throws IOException, NoSuchAlgorithmException {
+        final var hashBytes = MessageDigest.getInstance("SHA-1").digest(data);
+        final var hash = HexFormat.of().formatHex(hashBytes);
+
+        if (hasObject(hash)) {
+            return hash;
+        }
+
+        final var path = getLooseObjectPath(hash);
+
+        final var temporaryPath = resolveTemporaryObjectPath(path.getParent());
+        final var deflater = ZlibPool.SHARED.acquireDeflater(getConfig().getLooseCompressionLevel());
+        try {
+            try (
+                    final var outputStream = newTemporaryObjectOutputStream(temporaryPath);
+                    final var deflaterOutputStream = new DeflaterOutputStream(outputStream, deflater, STREAM_BUFFER_SIZE);
+            ) {
+                deflaterOutputStream.write(data);
+            }
+
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+            getLooseObjectCache().add(hash);
+        } catch (IOException | RuntimeException exception) {
+            Files.deleteIfExists(temporaryPath);
+            throw exception;
+        } finally {
+            ZlibPool.SHARED.release(deflater);
+        }
+
+        return hash;
+    }
+
+    private static Path resolveTemporaryObjectPath(Path directory) {
+        return directory.resolve(TEMPORARY_OBJECT_PREFIX + TEMPORARY_OBJECT_COUNTER.incrementAndGet());
+    }
+
+    private static OutputStream newTemporaryObjectOutputStream(Path temporaryPath) throws IOException {
+        try {
+            return Files.newOutputStream(temporaryPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (NoSuchFileException exception) {
+            /* first object in this fanout */
+            Files.createDirectories(temporaryPath.getParent());
+
+            return Files.newOutputStream(temporaryPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+    }
+
+
+//    ---------------------------------ALL CLONE RELATED CODE IS BELOW---------------------------------
+
+    public static Git clone(URI uri, Path path) throws IOException, DataFormatException, NoSuchAlgorithmException {
+        return clone(uri, path, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static Git clone(URI uri, Path path, int threads) throws IOException, DataFormatException, NoSuchAlgorithmException {
+        return clone(uri, path, threads, FetchOptions.DEFAULT);
+    }
+
+    public static Git clone(URI uri, Path path, int threads, FetchOptions options) throws IOException, DataFormatException, NoSuchAlgorithmException {
+        final var client = new GitClient(uri);
+        final var advertised = client.listReferences(List.of(HEAD, BRANCH_PREFIX, TAG_PREFIX));
+
+        final var head = advertised.stream()
+                .filter((reference) -> reference.name().equals(HEAD))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("remote has no HEAD"));
+
+        final var references = options.depth() == 0
+                ? advertised
+                : advertised.stream().filter((reference) -> reference == head || reference.name().equals(head.target())).toList();
+
+        final var wants = new LinkedHashSet<String>();
+        for (final var reference : references) {
+            wants.add(reference.hash());
+        }
+
+        final var git = init(path);
+        git.addRemote(DEFAULT_REMOTE, uri);
+
+        if (options.filter() != null) {
+            git.addPromisorRemote(DEFAULT_REMOTE, options.filter());
+        }
+
+        git.receivePack(client, wants, null, options);
+        git.writePackedReferences(DEFAULT_REMOTE, references);
+
+        if (head.isSymbolic() && head.target().startsWith(BRANCH_PREFIX)) {
+            final var tracking = getTrackingReferenceName(DEFAULT_REMOTE, head.target());
+
+            git.writeReference(head.target(), head.hash());
+            git.writeSymbolicReference(getTrackingReferenceName(DEFAULT_REMOTE, HEAD), tracking);
+            git.writeSymbolicReference(HEAD, head.target());
+        } else {
+            git.writeReference(HEAD, head.hash());
+        }
+
+        final var headCommit = git.readCommit(head.hash());
+
+        if (options.filter() != null) {
+            git.fetchMissingBlobs(client, headCommit.treeHash());
+        }
+
+        final var headTree = git.readTree(headCommit.treeHash());
+
+        git.checkout(headTree, git.root, threads);
+
+        return git;
+    }
+
+    private void writePackedReferences(String remote, List<Reference> references) throws IOException {
+        final var packed = new TreeMap<String, Reference>();
+
+        for (final var reference : references) {
+            final var name = reference.name();
+
+            if (name.startsWith(BRANCH_PREFIX)) {
+                packed.put(getTrackingReferenceName(remote, name), reference);
+            } else if (name.startsWith(TAG_PREFIX)) {
+                packed.put(name, reference);
+            }
+        }
+
+        final var content = new StringBuilder(PACKED_REFERENCES_HEADER);
+        for (final var entry : packed.entrySet()) {
+            final var reference = entry.getValue();
+            content.append(reference.hash()).append(' ').append(entry.getKey()).append('\n');
+
+            if (reference.peeled() != null) {
+                content.append('^').append(reference.peeled()).append('\n');
+            }
+        }
+
+        writeReferenceFile(getDotGit().relativize(getPackedRefsFile()).toString(), content.toString());
+    }
+
+    public void addRemote(String name, URI uri) throws IOException {
+        final var section = "[remote \"%s\"]\n        url = %s\n        fetch = +%s*:%s%s/*\n".formatted(name, uri, BRANCH_PREFIX, REMOTES_PREFIX, name);
+
+        Files.writeString(getConfigFile(), section, StandardOpenOption.APPEND);
+    }
+
+    public void addPromisorRemote(String name, String filter) throws IOException {
+        final var section = "[remote \"%s\"]\n        promisor = true\n        partialclonefilter = %s\n[extensions]\n        partialclone = %s\n".formatted(name, filter, name);
+
+        Files.writeString(getConfigFile(), section, StandardOpenOption.APPEND);
+    }
+
+//    ---------------------------------ALL FETCH RELATED CODE IS BELOW---------------------------------
+
+    public Map<String, String> fetch(String remote) throws IOException, DataFormatException, NoSuchAlgorithmException {
+        final var url = getConfig().get(Config.REMOTE + "." + remote, Config.URL);
+        if (url == null) {
+            throw new IllegalArgumentException("no such remote: " + remote);
+        }
+
+        return fetch(URI.create(url), remote);
+    }
+
+    public Map<String, String> fetch(URI uri, String remote) throws IOException, DataFormatException, NoSuchAlgorithmException {
+        final var client = new GitClient(uri);
+        final var references = client.listReferences(List.of(HEAD, BRANCH_PREFIX, TAG_PREFIX));
+
+        final var wants = new LinkedHashSet<String>();
+        for (final var reference : references) {
+            if (!hasObject(reference.hash())) {
+                wants.add(reference.hash());
+            }
+        }
+
+        final var tags = new ArrayList<Reference>();
+        for (final var reference : references) {
+            if (reference.name().startsWith(TAG_PREFIX) && resolveReference(reference.name()) == null) {
+                tags.add(reference);
+            }
+        }
+
+        if (!wants.isEmpty()) {
+            final var shallow = readShallowCommits().stream().map(ObjectId::name).toList();
+            final var filter = getConfig().get(Config.REMOTE + "." + remote, Config.PARTIAL_CLONE_FILTER);
+
+            final var negotiator = new Negotiator(newRevWalk(), readNegotiationTips());
+            receivePack(client, wants, negotiator, new FetchOptions(0, filter, shallow));
+        }
+
+        final var defaultBranch = references.stream()
+                .filter((reference) -> reference.name().equals(HEAD) && reference.isSymbolic())
+                .map(Reference::target)
+                .findFirst()
+                .orElse(null);
+
+        final var updated = new TreeMap<String, String>();
+        final var fetchHead = new StringBuilder();
+
+        for (final var reference : references) {
+            final var name = reference.name();
+            if (!name.startsWith(BRANCH_PREFIX)) {
+                continue;
+            }
+
+            final var tracking = getTrackingReferenceName(remote, name);
+            if (!reference.hash().equals(resolveReference(tracking))) {
+                writeReference(tracking, reference.hash());
+                updated.put(tracking, reference.hash());
+            }
+
+            final var line = "%s\t%s\tbranch '%s' of %s\n".formatted(reference.hash(), name.equals(defaultBranch) ? "" : "not-for-merge", name.substring(BRANCH_PREFIX.length()), uri);
+            if (name.equals(defaultBranch)) {
+                fetchHead.insert(0, line);
+            } else {
+                fetchHead.append(line);
+            }
+        }
+
+        for (final var tag : tags) {
+            writeReference(tag.name(), tag.hash());
+            updated.put(tag.name(), tag.hash());
+        }
+
+        Files.writeString(getFetchHeadFile(), fetchHead);
+
+        return updated;
+    }
+
+    private List<ObjectId> readNegotiationTips() throws IOException {
+        final var tips = new LinkedHashSet<String>();
+
+        for (final var entry : readReferences().entrySet()) {
+            if (entry.getKey().startsWith(BRANCH_PREFIX) || entry.getKey().startsWith(REMOTES_PREFIX)) {
+                tips.add(entry.getValue());
+            }
+        }
+
+        final var head = resolveReference(HEAD);
+        if (head != null) {
+            tips.add(head);
+        }
+
+        return tips.stream().map(ObjectId::fromString).toList();
+    }
+
+    private Path receivePack(GitClient client, Collection<String> wants, Negotiator negotiator, FetchOptions options) throws IOException, DataFormatException, NoSuchAlgorithmException {
+        final var packDirectory = getPackDirectory();
+        Files.createDirectories(packDirectory);
+
+        final var packPath = Files.createTempFile(packDirectory, "tmp_pack_", "");
+        try {
+            final ShallowUpdate update;
+            try (final var outputStream = new BufferedOutputStream(Files.newOutputStream(packPath))) {
+                update = client.getPack(wants, negotiator, options, outputStream);
+            }
+
+            final var finalPackPath = indexPack(packPath);
+            updateShallowCommits(update);
+
+            if (isPartialClone()) {
+                final var fileName = finalPackPath.getFileName().toString();
+                final var promisorName = fileName.substring(0, fileName.length() - PackFile.PACK_EXTENSION.length()) + PROMISOR_EXTENSION;
+                final var promisorPath = finalPackPath.resolveSibling(promisorName);
+
+                try {
+                    Files.createFile(promisorPath);
+                } catch (FileAlreadyExistsException exception) {
+                    /* the same pack was fetched before */
+                }
+            }
+
+            return finalPackPath;
+        } finally {
+            Files.deleteIfExists(packPath);
+        }
+    }
+
+//    ---------------------------------ALL PARTIAL CLONE RELATED CODE IS BELOW---------------------------------
+
+    public boolean isPartialClone() {
+        return getPromisorRemote() != null;
+    }
+
+    private String getPromisorRemote() {
+        return getConfig().get(Config.EXTENSIONS, Config.PARTIAL_CLONE);
+    }
+
+    public synchronized void fetchMissingObjects(Collection<String> hashes) throws IOException {
+        final var remote = getPromisorRemote();
+        if (remote == null) {
+            throw new IllegalStateException("not a partial clone");
+        }
+
+        final var url = getConfig().get(Config.REMOTE + "." + remote, Config.URL);
+        if (url == null) {
+            throw new IllegalStateException("no url for promisor remote: " + remote);
+        }
+
+        fetchMissingObjects(new GitClient(URI.create(url)), hashes);
+    }
+
+    private synchronized void fetchMissingObjects(GitClient client, Collection<String> hashes) throws IOException {
+        reloadPacks();
+
+        final var missing = new LinkedHashSet<String>();
+        for (final var hash : hashes) {
+            if (!hasObject(hash)) {
+                missing.add(hash);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        try {
+            receivePack(client, missing, null, FetchOptions.DEFAULT);
+        } catch (DataFormatException exception) {
+            throw new IOException("corrupted promisor pack", exception);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private void fetchMissingBlobs(GitClient client, String treeHash) throws IOException {
+        final var blobs = new ArrayList<String>();
+        collectBlobs(readTreeIterator(treeHash), blobs);
+
+        fetchMissingObjects(client, blobs);
+    }
+
+    private void collectBlobs(TreeIterator iterator, List<String> blobs) throws IOException {
+        while (iterator.next()) {
+            switch (iterator.modeType()) {
+                case REGULAR_FILE -> blobs.add(iterator.objectId().name());
+                case DIRECTORY -> collectBlobs(readTreeIterator(iterator.objectId().name()), blobs);
+                default -> {}
+            }
+        }
+    }
+
+    private static String getTrackingReferenceName(String remote, String name) {
+        final var branch = name.startsWith(BRANCH_PREFIX) ? name.substring(BRANCH_PREFIX.length()) : name;
+
+        return REMOTES_PREFIX + remote + "/" + branch;
+    }
+
+    public Path indexPack(Path packPath) throws IOException, DataFormatException, NoSuchAlgorithmException {
+        final List<PackIndex.Entry> entries;
+        final Map<String, RawObject> externalBases;
+        byte[] checksum;
+
+        try (final var channel = FileChannel.open(packPath, StandardOpenOption.READ)) {
+            final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final var indexer = new PackIndexer(buffer);
+
+            entries = indexer.index(this::readExternalBase);
+            externalBases = indexer.getExternalBases();
+            checksum = new PackParser(buffer).readChecksum();
+        }
+
+        if (!externalBases.isEmpty()) {
+            try (final var channel = FileChannel.open(packPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                checksum = new ThinPackCompleter(channel, getConfig().getCompressionLevel()).complete(externalBases, entries);
+            }
+        }
+
+        final var packDirectory = getPackDirectory();
+        final var name = "pack-" + HEX.formatHex(checksum);
+
+        final var indexTemporaryPath = Files.createTempFile(packDirectory, "tmp_idx_", "");
+        try {
+            try (final var outputStream = new BufferedOutputStream(Files.newOutputStream(indexTemporaryPath))) {
+                PackIndex.write(entries, checksum, outputStream);
+            }
+
+            final var finalPackPath = packDirectory.resolve(name + PackFile.PACK_EXTENSION);
+            Files.move(packPath, finalPackPath, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(indexTemporaryPath, packDirectory.resolve(name + PackFile.INDEX_EXTENSION), StandardCopyOption.ATOMIC_MOVE);
+            reloadPacks();
+
+            return finalPackPath;
+        } finally {
+            Files.deleteIfExists(indexTemporaryPath);
+        }
+    }
+
+    private RawObject readExternalBase(String hash) throws IOException {
+        if (!hasObject(hash)) {
+            return null;
+        }
+
+        return readRawObject(hash);
+    }
+
+    public RawObject readRawObject(String hash) throws FileNotFoundException, IOException {
+        final var id = ObjectId.fromString(hash);
+        final var cache = getObjectCache();
+
+        var object = cache.get(id);
+        if (object == null) {
+            object = readUncachedRawObject(hash);
+            cache.put(id, object);
+        }
+
+        return object;
+    }
+
+    private RawObject readUncachedRawObject(String hash) throws FileNotFoundException, IOException {
+        final var packed = readPackedRawObject(hash);
+        if (packed != null) {
+            return packed;
+        }
+
+        final var path = getLooseObjectPath(hash);
+        if (!Files.exists(path)) {
+            return readMissingRawObject(hash);
+        }
+
+        final var inflater = ZlibPool.SHARED.acquireInflater();
+        try (
+                final var inputStream = new FileInputStream(path.toFile());
+                final var inflaterInputStream = new InflaterInputStream(inputStream, inflater, STREAM_BUFFER_SIZE)
+        ) {
+            final var builder = new StringBuilder();
+
+            int value;
+            while ((value = inflaterInputStream.read()) != -1 && value != ' ') {
+                builder.append((char) value);
+            }
+
+            final var type = ObjectType.byName(builder.toString());
+
+            builder.setLength(0);
+            while ((value = inflaterInputStream.read()) != -1 && value != 0) {
+                builder.append((char) value);
+            }
+
+            final var length = Integer.parseInt(builder.toString());
+            final var content = inflaterInputStream.readNBytes(length);
+
+            return new RawObject(type, content);
+        } finally {
+            ZlibPool.SHARED.release(inflater);
+        }
+    }
+
+    public String writeRawObject(RawObject object) throws IOException, NoSuchAlgorithmException {
+        return writeRawObject(object.serialize());
+    }
+
+    public void checkout(Tree tree) throws FileNotFoundException, IOException {
+        checkout(tree, root);
+    }
+
+    public void checkout(Tree tree, Path root) throws FileNotFoundException, IOException {
+        for (final var entry : tree.entries()) {
+            checkoutEntry(entry.mode().type(), entry.name(), entry.hash(), root);
+        }
+    }
+
+    private void checkout(TreeIterator iterator, Path root) throws FileNotFoundException, IOException {
+        while (iterator.next()) {
+            checkoutEntry(iterator.modeType(), iterator.name(), iterator.objectId().name(), root);
+        }
+    }
+
+    private void checkoutEntry(TreeEntryModeType type, String name, String hash, Path root) throws FileNotFoundException, IOException {
+        final var path = root.resolve(name);
+
+        switch (type) {
+            case REGULAR_FILE: {
+                checkoutBlob(hash, path);
+                break;
+            }
+
+            case DIRECTORY: {
+                Files.createDirectories(path);
+                checkout(readTreeIterator(hash), path);
+
+                break;
+            }
+
+            default: {
+                throw new UnsupportedOperationException("entry type: " + type);
+            }
+        }
+    }
+
+    public void checkout(Tree tree, Path root, int threads) throws FileNotFoundException, IOException {
+        if (threads <= 1) {
+            checkout(tree, root);
+            return;
+        }
+
+        final var jobs = new ArrayList<CheckoutJob>();
+        prepareCheckout(tree, root, jobs);
+
+        final var executor = Executors.newFixedThreadPool(threads);
+        try {
+            final var futures = new ArrayList<Future<?>>(jobs.size());
+            for (final var job : jobs) {
+                futures.add(executor.submit(() -> {
+                    checkoutBlob(job.hash(), job.path());
+                    return null;
+                }));
+            }
+
+            IOException failure = null;
+            for (var index = 0; index < jobs.size(); ++index) {
+                try {
+                    futures.get(index).get();
+                } catch (ExecutionException exception) {
+                    final var wrapped = new IOException("unable to checkout %s".formatted(jobs.get(index).path()), exception.getCause());
+
+                    if (failure == null) {
+                        failure = wrapped;
+                    } else {
+                        failure.addSuppressed(wrapped);
+                    }
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("checkout interrupted");
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void prepareCheckout(Tree tree, Path root, List<CheckoutJob> jobs) throws FileNotFoundException, IOException {
+        for (final var entry : tree.entries()) {
+            prepareCheckoutEntry(entry.mode().type(), entry.name(), entry.hash(), root, jobs);
+        }
+    }
+
+    private void prepareCheckout(TreeIterator iterator, Path root, List<CheckoutJob> jobs) throws FileNotFoundException, IOException {
+        while (iterator.next()) {
+            prepareCheckoutEntry(iterator.modeType(), iterator.name(), iterator.objectId().name(), root, jobs);
+        }
+    }
+
+    private void prepareCheckoutEntry(TreeEntryModeType type, String name, String hash, Path root, List<CheckoutJob> jobs) throws FileNotFoundException, IOException {
+        final var path = root.resolve(name);
+
+        switch (type) {
+            case REGULAR_FILE: {
+                jobs.add(new CheckoutJob(hash, path));
+                break;
+            }
+
+            case DIRECTORY: {
+                Files.createDirectories(path);
+                prepareCheckout(readTreeIterator(hash), path, jobs);
+
+                break;
+            }
+
+            default: {
+                throw new UnsupportedOperationException("entry type: " + type);
+            }
+        }
+    }
+
+    private static record CheckoutJob(
+            String hash,
+            Path path
+    ) {}
+
+    public void checkout(Blob blob, Path path) throws FileNotFoundException, IOException {
         Files.write(path, blob.data());
     }
 
-    @SuppressWarnings("rawtypes")
-    private static record RawObject(
-            ObjectType type,
-            byte[] content
-    ) {
+    public void checkoutBlob(String hash, Path path) throws FileNotFoundException, IOException {
+        final var output = TRANSFER_BUFFER.get();
+
+        try (final var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            transferObject(ObjectType.BLOB, hash, channel, output);
+        }
+    }
+
+    public void transferObject(ObjectType<?> type, String hash, WritableByteChannel channel, ByteBuffer output) throws FileNotFoundException, IOException {
+        for (final var pack : getPacks()) {
+            if (pack.transferTo(hash, type, channel, output)) {
+                return;
+            }
+        }
+
+        final var path = getLooseObjectPath(hash);
+        if (Files.exists(path)) {
+            transferLooseObject(type, hash, path, channel, output);
+            return;
+        }
+
+        for (final var pack : reloadPacks()) {
+            if (pack.transferTo(hash, type, channel, output)) {
+                return;
+            }
+        }
+
+        if (isPartialClone()) {
+            fetchMissingObjects(List.of(hash));
+
+            for (final var pack : getPacks()) {
+                if (pack.transferTo(hash, type, channel, output)) {
+                    return;
+                }
+            }
+        }
+
+        throw new FileNotFoundException("object not found: " + hash);
+    }
+
+    private void transferLooseObject(ObjectType<?> type, String hash, Path path, WritableByteChannel channel, ByteBuffer output) throws IOException {
+        final var inflater = ZlibPool.SHARED.acquireInflater();
+
+        try (final var source = FileChannel.open(path, StandardOpenOption.READ)) {
+            inflater.setInput(source.map(FileChannel.MapMode.READ_ONLY, 0, source.size()));
+            output.clear();
+
+            int headerLength;
+            while ((headerLength = indexOf(output, (byte) 0, MAX_OBJECT_HEADER_LENGTH)) == -1) {
+                if (output.position() >= MAX_OBJECT_HEADER_LENGTH) {
+                    throw new DataFormatException("object header is longer than %d bytes".formatted(MAX_OBJECT_HEADER_LENGTH));
+                }
+
+                if (inflater.finished() || inflater.inflate(output) == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("truncated object header");
+                }
+            }
+
+            final var headerBytes = new byte[headerLength];
+            output.get(0, headerBytes);
+
+            final var header = new String(headerBytes, StandardCharsets.US_ASCII);
+            final var space = header.indexOf(' ');
+            if (space == -1) {
+                throw new DataFormatException("invalid object header: " + header);
+            }
+
+            final var typeString = header.substring(0, space);
+            if (!type.getName().equals(typeString)) {
+                throw new IllegalArgumentException("trying to read %s as %s (%s)".formatted(typeString, type.getName(), hash));
+            }
+
+            final long size;
+            try {
+                size = Long.parseLong(header.substring(space + 1));
+            } catch (NumberFormatException exception) {
+                throw new DataFormatException("invalid object size: " + header);
+            }
+
+            output.flip();
+            output.position(headerLength + 1);
+
+            var written = (long) output.remaining();
+            while (output.hasRemaining()) {
+                channel.write(output);
+            }
+
+            written += PackParser.inflateTo(inflater, channel, output);
+            if (written != size) {
+                throw new DataFormatException("object inflated to %d byte(s) instead of %d".formatted(written, size));
+            }
+        } catch (DataFormatException exception) {
+            throw new IOException("corrupted object %s".formatted(hash), exception);
+        } finally {
+            ZlibPool.SHARED.release(inflater);
+        }
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value, int limit) {
+        final var end = Math.min(buffer.position(), limit);
+
+        for (var index = 0; index < end; ++index) {
+            if (buffer.get(index) == value) {
+                return index;
+            }
+        }
+
+        return -1;
     }
 
 }
\ No newline at end of file
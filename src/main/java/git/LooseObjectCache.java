@@ -0,0 +1,69 @@
+package git;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class LooseObjectCache {
+
+    public static final int FANOUT_SIZE = 256;
+
+    private final AtomicReferenceArray<Set<String>> fanouts = new AtomicReferenceArray<>(FANOUT_SIZE);
+    private final Path objectsDirectory;
+
+    public boolean contains(String hash) throws IOException {
+        return getFanout(hash).contains(hash.substring(2));
+    }
+
+    public void add(String hash) throws IOException {
+        getFanout(hash).add(hash.substring(2));
+    }
+
+    public void clear() {
+        for (var index = 0; index < FANOUT_SIZE; ++index) {
+            fanouts.set(index, null);
+        }
+    }
+
+    private Set<String> getFanout(String hash) throws IOException {
+        final var index = Integer.parseInt(hash, 0, 2, 16);
+
+        final var fanout = fanouts.get(index);
+        if (fanout != null) {
+            return fanout;
+        }
+
+        final var loaded = loadFanout(hash.substring(0, 2));
+        if (fanouts.compareAndSet(index, null, loaded)) {
+            return loaded;
+        }
+
+        return fanouts.get(index);
+    }
+
+    private Set<String> loadFanout(String first2) throws IOException {
+        final Set<String> names = ConcurrentHashMap.newKeySet();
+
+        try (final var paths = Files.newDirectoryStream(objectsDirectory.resolve(first2))) {
+            for (final var path : paths) {
+                final var name = path.getFileName().toString();
+
+                if (name.length() == Git.HASH_STRING_LENGTH - 2) {
+                    names.add(name);
+                }
+            }
+        } catch (NoSuchFileException exception) {
+            /* no object in this fanout yet */
+        }
+
+        return names;
+    }
+
+}
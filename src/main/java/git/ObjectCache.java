@@ -0,0 +1,140 @@
+package git;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import git.domain.ObjectId;
+import git.domain.ObjectType;
+import git.domain.RawObject;
+import lombok.RequiredArgsConstructor;
+
+public class ObjectCache {
+
+    public static final long DEFAULT_OBJECT_LIMIT = 32 * 1024 * 1024;
+    public static final long DEFAULT_BLOB_LIMIT = 16 * 1024 * 1024;
+
+    private final Pool objects;
+    private final Pool blobs;
+    private final AtomicLong misses = new AtomicLong();
+
+    public ObjectCache(long objectLimit, long blobLimit) {
+        this.objects = new Pool(objectLimit);
+        this.blobs = new Pool(blobLimit);
+    }
+
+    public ObjectCache() {
+        this(DEFAULT_OBJECT_LIMIT, DEFAULT_BLOB_LIMIT);
+    }
+
+    public RawObject get(ObjectId id) {
+        final var object = objects.get(id);
+        if (object != null) {
+            return object;
+        }
+
+        final var blob = blobs.get(id);
+        if (blob == null) {
+            misses.incrementAndGet();
+        }
+
+        return blob;
+    }
+
+    public void put(ObjectId id, RawObject object) {
+        getPool(object).put(id, object);
+    }
+
+    public void clear() {
+        objects.clear();
+        blobs.clear();
+    }
+
+    public Metrics metrics() {
+        return new Metrics(objects.snapshot(), blobs.snapshot(), misses.get());
+    }
+
+    private Pool getPool(RawObject object) {
+        return object.type() == ObjectType.BLOB ? blobs : objects;
+    }
+
+    @RequiredArgsConstructor
+    private static class Pool {
+
+        private final LinkedHashMap<ObjectId, RawObject> objectById = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final long limit;
+
+        private long size;
+
+        private long hits;
+        private long evictions;
+
+        public synchronized RawObject get(ObjectId id) {
+            final var object = objectById.get(id);
+            if (object != null) {
+                ++hits;
+            }
+
+            return object;
+        }
+
+        public synchronized void put(ObjectId id, RawObject object) {
+            final var length = object.content().length;
+            if (length > limit / 4) {
+                return;
+            }
+
+            final var previous = objectById.put(id, object);
+            if (previous != null) {
+                size -= previous.content().length;
+            }
+
+            size += length;
+
+            final var iterator = objectById.values().iterator();
+            while (size > limit) {
+                size -= iterator.next().content().length;
+                iterator.remove();
+
+                ++evictions;
+            }
+        }
+
+        public synchronized void clear() {
+            objectById.clear();
+            size = 0;
+        }
+
+        public synchronized PoolMetrics snapshot() {
+            return new PoolMetrics(limit, size, objectById.size(), hits, evictions);
+        }
+
+    }
+
+    public static record Metrics(
+            PoolMetrics objects,
+            PoolMetrics blobs,
+            long misses
+    ) {
+
+        public String format() {
+            return "object cache: %d miss(es); trees/commits %s; blobs %s".formatted(misses, objects.format(), blobs.format());
+        }
+
+    }
+
+    public static record PoolMetrics(
+            long limit,
+            long size,
+            int count,
+            long hits,
+            long evictions
+    ) {
+
+        public String format() {
+            return "%d hit(s), %d eviction(s), %d object(s) in %d/%d KiB".formatted(hits, evictions, count, size / 1024, limit / 1024);
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package git.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class DaemonClient {
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        System.exit(run(GitDaemon.getDefaultSocketPath(), Paths.get("."), args, System.out, System.err));
+    }
+
+    public static int run(Path socketPath, Path directory, String[] args, OutputStream stdout, OutputStream stderr) throws IOException {
+        try (final var channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+
+            final var outputStream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            new Request(directory, args).write(outputStream);
+            outputStream.flush();
+
+            final var inputStream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            final var buffer = new byte[BUFFER_SIZE];
+
+            try {
+                while (true) {
+                    final var frame = inputStream.readByte();
+
+                    if (frame == GitDaemon.EXIT_FRAME) {
+                        stdout.flush();
+                        stderr.flush();
+
+                        return inputStream.readInt();
+                    }
+
+                    final var target = switch (frame) {
+                        case GitDaemon.STDOUT_FRAME -> stdout;
+                        case GitDaemon.STDERR_FRAME -> stderr;
+                        default -> throw new IllegalStateException("unknown daemon frame: " + frame);
+                    };
+
+                    var remaining = inputStream.readInt();
+                    while (remaining > 0) {
+                        final var read = inputStream.read(buffer, 0, Math.min(remaining, buffer.length));
+                        if (read == -1) {
+                            throw new EOFException();
+                        }
+
+                        target.write(buffer, 0, read);
+                        remaining -= read;
+                    }
+                }
+            } catch (EOFException exception) {
+                throw new IllegalStateException("daemon closed the connection before exiting", exception);
+            }
+        }
+    }
+
+}
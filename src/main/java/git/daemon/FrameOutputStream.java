@@ -0,0 +1,43 @@
+package git.daemon;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class FrameOutputStream extends OutputStream {
+
+    private final DataOutputStream outputStream;
+    private final byte channel;
+
+    @Override
+    public void write(int value) throws IOException {
+        write(new byte[] { (byte) value }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+
+        synchronized (outputStream) {
+            outputStream.writeByte(channel);
+            outputStream.writeInt(length);
+            outputStream.write(bytes, offset, length);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+}
@@ -0,0 +1,226 @@
+package git.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import git.Git;
+import git.util.Platform;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class GitDaemon {
+
+    public static final String SOCKET_VARIABLE = "GIT_DAEMON_SOCKET";
+    public static final String STOP_REQUEST = "daemon-stop";
+
+    public static final byte EXIT_FRAME = 0;
+    public static final byte STDOUT_FRAME = 1;
+    public static final byte STDERR_FRAME = 2;
+
+    public static final int EXIT_SUCCESS = 0;
+    public static final int EXIT_FAILURE = 1;
+
+    private final Path socketPath;
+    private final Handler handler;
+    private final Map<Path, Repository> repositories = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool((runnable) -> {
+        final var thread = new Thread(runnable, "git-daemon-worker");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private volatile ServerSocketChannel server;
+
+    public void serve() throws IOException {
+        removeStaleSocket();
+
+        try (final var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            bind(server);
+            this.server = server;
+
+            final var cleanup = new Thread(this::deleteSocket, "git-daemon-cleanup");
+            Runtime.getRuntime().addShutdownHook(cleanup);
+
+            try {
+                while (true) {
+                    final var channel = server.accept();
+                    executor.execute(() -> handle(channel));
+                }
+            } catch (ClosedChannelException exception) {
+                /* stopped */
+            } finally {
+                Runtime.getRuntime().removeShutdownHook(cleanup);
+            }
+        } finally {
+            executor.shutdownNow();
+            deleteSocket();
+        }
+    }
+
+    private void bind(ServerSocketChannel server) throws IOException {
+        if (Platform.isWindows()) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            return;
+        }
+
+        final var directory = Files.createTempDirectory(socketPath.toAbsolutePath().getParent(), ".git-daemon-", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        final var privatePath = directory.resolve("socket");
+
+        try {
+            server.bind(UnixDomainSocketAddress.of(privatePath));
+            Files.setPosixFilePermissions(privatePath, PosixFilePermissions.fromString("rw-------"));
+            Files.move(privatePath, socketPath, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(privatePath);
+            Files.delete(directory);
+        }
+    }
+
+    public void stop() throws IOException {
+        final var server = this.server;
+
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        try (
+                channel;
+                final var inputStream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                final var outputStream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), Git.STREAM_BUFFER_SIZE))
+        ) {
+            final var request = Request.read(inputStream);
+
+            final var stdout = new PrintStream(new BufferedOutputStream(new FrameOutputStream(outputStream, STDOUT_FRAME), Git.STREAM_BUFFER_SIZE), false);
+            final var stderr = new PrintStream(new FrameOutputStream(outputStream, STDERR_FRAME), false);
+
+            var status = EXIT_SUCCESS;
+            try {
+                if (!request.isStop()) {
+                    final var root = request.directory().toRealPath();
+
+                    handler.handle(open(root), root, request.args(), stdout);
+                }
+            } catch (Exception exception) {
+                status = EXIT_FAILURE;
+
+                stdout.flush();
+                exception.printStackTrace(stderr);
+            }
+
+            stdout.flush();
+            stderr.flush();
+
+            outputStream.writeByte(EXIT_FRAME);
+            outputStream.writeInt(status);
+            outputStream.flush();
+
+            if (request.isStop()) {
+                stop();
+            }
+        } catch (IOException exception) {
+            System.err.println("git-daemon: " + exception);
+        }
+    }
+
+    private Git open(Path root) throws IOException {
+        final var git = Git.open(root);
+        final var stamp = new Stamp(
+                Files.readAttributes(git.getDotGit(), BasicFileAttributes.class).fileKey(),
+                getLastModifiedTime(git.getConfigFile()),
+                getLastModifiedTime(git.getPackDirectory())
+        );
+
+        final var cached = repositories.get(root);
+        if (cached != null && cached.stamp().equals(stamp)) {
+            cached.git().getLooseObjectCache().clear();
+
+            return cached.git();
+        }
+
+        repositories.put(root, new Repository(git, stamp));
+
+        return git;
+    }
+
+    private static FileTime getLastModifiedTime(Path path) throws IOException {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (NoSuchFileException exception) {
+            return null;
+        }
+    }
+
+    private void removeStaleSocket() throws IOException {
+        if (!Files.exists(socketPath)) {
+            return;
+        }
+
+        try (final var channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            throw new IllegalStateException("daemon already listening on " + socketPath);
+        } catch (IOException exception) {
+            Files.delete(socketPath);
+        }
+    }
+
+    private void deleteSocket() {
+        try {
+            Files.deleteIfExists(socketPath);
+        } catch (IOException exception) {
+            System.err.println("git-daemon: could not delete %s: %s".formatted(socketPath, exception));
+        }
+    }
+
+    public static Path getDefaultSocketPath() {
+        final var value = System.getenv(SOCKET_VARIABLE);
+        if (value != null && !value.isEmpty()) {
+            return Paths.get(value);
+        }
+
+        return Paths.get(System.getProperty("java.io.tmpdir"), "java-git-%s.sock".formatted(System.getProperty("user.name")));
+    }
+
+    @FunctionalInterface
+    public static interface Handler {
+
+        void handle(Git git, Path root, String[] args, PrintStream outputStream) throws IOException, NoSuchAlgorithmException;
+
+    }
+
+    private static record Repository(
+            Git git,
+            Stamp stamp
+    ) {}
+
+    private static record Stamp(
+            Object key,
+            FileTime configTime,
+            FileTime packTime
+    ) {}
+
+}
@@ -0,0 +1,63 @@
+package git.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public record Request(
+        Path directory,
+        String[] args
+) {
+
+    public static final int MAX_ARGUMENTS = 1024;
+    public static final int MAX_STRING_LENGTH = 64 * 1024;
+
+    public boolean isStop() {
+        return args.length == 1 && GitDaemon.STOP_REQUEST.equals(args[0]);
+    }
+
+    public void write(DataOutputStream outputStream) throws IOException {
+        writeString(outputStream, directory.toAbsolutePath().toString());
+
+        outputStream.writeInt(args.length);
+        for (final var argument : args) {
+            writeString(outputStream, argument);
+        }
+    }
+
+    public static Request read(DataInputStream inputStream) throws IOException {
+        final var directory = Paths.get(readString(inputStream));
+
+        final var count = inputStream.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new IllegalStateException("bad argument count: " + count);
+        }
+
+        final var args = new String[count];
+        for (var index = 0; index < count; ++index) {
+            args[index] = readString(inputStream);
+        }
+
+        return new Request(directory, args);
+    }
+
+    private static void writeString(DataOutputStream outputStream, String value) throws IOException {
+        final var bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private static String readString(DataInputStream inputStream) throws IOException {
+        final var length = inputStream.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IllegalStateException("bad string length: " + length);
+        }
+
+        return new String(inputStream.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+}
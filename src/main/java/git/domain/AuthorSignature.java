@@ -1,7 +1,11 @@
 package git.domain;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Locale;
 
 public record AuthorSignature(
         String login,
@@ -9,7 +13,8 @@ public record AuthorSignature(
         ZonedDateTime when
 ) {
 
-    public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("XX");
+    public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("xx");
+    public static final DateTimeFormatter LOG_DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE MMM d HH:mm:ss yyyy xx", Locale.ENGLISH);
 
     public String format() {
         final var timeStamp = when.toEpochSecond();
@@ -18,4 +23,77 @@ public record AuthorSignature(
         return "%s <%s> %d %s".formatted(login, email, timeStamp, timeZone);
     }
 
-}
\ No newline at end of file
+    public static AuthorSignature parse(byte[] bytes, int start, int end) {
+        final var emailStart = indexOf(bytes, start, end, (byte) '<');
+        final var emailEnd = lastIndexOf(bytes, start, end, (byte) '>');
+
+        if (emailStart == -1 || emailEnd < emailStart || emailStart == start) {
+            throw new IllegalArgumentException("invalid author: " + new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        }
+
+        final var login = new String(bytes, start, emailStart - 1 - start, StandardCharsets.UTF_8);
+        final var email = new String(bytes, emailStart + 1, emailEnd - emailStart - 1, StandardCharsets.UTF_8);
+
+        final var timeStart = emailEnd + 2;
+        final var timeEnd = indexOf(bytes, timeStart, end, (byte) ' ');
+        if (timeEnd == -1) {
+            throw new IllegalArgumentException("invalid author: " + new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        }
+
+        final var instant = Instant.ofEpochSecond(parseTimestamp(bytes, timeStart, timeEnd));
+        final var offset = parseOffset(bytes, timeEnd + 1, end);
+
+        return new AuthorSignature(login, email, ZonedDateTime.ofInstant(instant, offset));
+    }
+
+    public static long parseTimestamp(byte[] bytes, int start, int end) {
+        if (start == end) {
+            throw new IllegalArgumentException("empty timestamp");
+        }
+
+        var value = 0L;
+        for (var index = start; index < end; ++index) {
+            final var digit = bytes[index] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("invalid timestamp digit: " + (char) bytes[index]);
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    public static ZoneOffset parseOffset(byte[] bytes, int start, int end) {
+        if (end - start != 5 || (bytes[start] != '+' && bytes[start] != '-')) {
+            throw new IllegalArgumentException("invalid time zone: " + new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        }
+
+        final var hours = (int) parseTimestamp(bytes, start + 1, start + 3);
+        final var minutes = (int) parseTimestamp(bytes, start + 3, start + 5);
+        final var seconds = (hours * 60 + minutes) * 60;
+
+        return ZoneOffset.ofTotalSeconds(bytes[start] == '-' ? -seconds : seconds);
+    }
+
+    private static int indexOf(byte[] bytes, int start, int end, byte value) {
+        for (var index = start; index < end; ++index) {
+            if (bytes[index] == value) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] bytes, int start, int end, byte value) {
+        for (var index = end - 1; index >= start; --index) {
+            if (bytes[index] == value) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+}
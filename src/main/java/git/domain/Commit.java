@@ -1,9 +1,22 @@
 package git.domain;
 
+import java.util.Collections;
+import java.util.List;
+
 public record Commit(
         String treeHash,
-        String parentHash,
+        List<String> parentHashes,
         AuthorSignature author,
         AuthorSignature committer,
         String message
-) implements GitObject {}
\ No newline at end of file
+) implements GitObject {
+
+    public Commit(String treeHash, String parentHash, AuthorSignature author, AuthorSignature committer, String message) {
+        this(treeHash, parentHash != null ? List.of(parentHash) : Collections.emptyList(), author, committer, message);
+    }
+
+    public String parentHash() {
+        return parentHashes.isEmpty() ? null : parentHashes.getFirst();
+    }
+
+}
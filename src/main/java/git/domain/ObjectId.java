@@ -0,0 +1,172 @@
+package git.domain;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import git.Git;
+
+public record ObjectId(
+        int word1,
+        int word2,
+        int word3,
+        int word4,
+        int word5
+) implements Comparable<ObjectId> {
+
+    public static final int BYTES = Git.HASH_BYTES_LENGTH;
+
+    public int firstByte() {
+        return word1 >>> 24;
+    }
+
+    public byte[] toByteArray() {
+        final var bytes = new byte[BYTES];
+        copyTo(bytes, 0);
+
+        return bytes;
+    }
+
+    public void copyTo(byte[] bytes, int offset) {
+        writeInt(bytes, offset, word1);
+        writeInt(bytes, offset + 4, word2);
+        writeInt(bytes, offset + 8, word3);
+        writeInt(bytes, offset + 12, word4);
+        writeInt(bytes, offset + 16, word5);
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(toByteArray());
+    }
+
+    public boolean equals(byte[] bytes, int offset) {
+        return word1 == readInt(bytes, offset)
+                && word2 == readInt(bytes, offset + 4)
+                && word3 == readInt(bytes, offset + 8)
+                && word4 == readInt(bytes, offset + 12)
+                && word5 == readInt(bytes, offset + 16);
+    }
+
+    public String name() {
+        return Git.HEX.formatHex(toByteArray());
+    }
+
+    @Override
+    public int compareTo(ObjectId other) {
+        var comparison = Integer.compareUnsigned(word1, other.word1);
+        if (comparison == 0) {
+            comparison = Integer.compareUnsigned(word2, other.word2);
+        }
+        if (comparison == 0) {
+            comparison = Integer.compareUnsigned(word3, other.word3);
+        }
+        if (comparison == 0) {
+            comparison = Integer.compareUnsigned(word4, other.word4);
+        }
+        if (comparison == 0) {
+            comparison = Integer.compareUnsigned(word5, other.word5);
+        }
+
+        return comparison;
+    }
+
+    @Override
+    public int hashCode() {
+        return word2;
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+
+    public static ObjectId fromBytes(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("invalid object id length: " + bytes.length);
+        }
+
+        return fromBytes(bytes, 0);
+    }
+
+    public static ObjectId fromBytes(byte[] bytes, int offset) {
+        return new ObjectId(
+                readInt(bytes, offset),
+                readInt(bytes, offset + 4),
+                readInt(bytes, offset + 8),
+                readInt(bytes, offset + 12),
+                readInt(bytes, offset + 16)
+        );
+    }
+
+    public static ObjectId fromString(String hash) {
+        if (hash.length() != Git.HASH_STRING_LENGTH) {
+            throw new IllegalArgumentException("invalid object id: " + hash);
+        }
+
+        return new ObjectId(
+                parseWord(hash, 0),
+                parseWord(hash, 8),
+                parseWord(hash, 16),
+                parseWord(hash, 24),
+                parseWord(hash, 32)
+        );
+    }
+
+    public static ObjectId fromHex(byte[] bytes, int offset) {
+        if (offset + Git.HASH_STRING_LENGTH > bytes.length) {
+            throw new IllegalArgumentException("truncated object id");
+        }
+
+        return new ObjectId(
+                parseWord(bytes, offset),
+                parseWord(bytes, offset + 8),
+                parseWord(bytes, offset + 16),
+                parseWord(bytes, offset + 24),
+                parseWord(bytes, offset + 32)
+        );
+    }
+
+    private static int parseWord(String hash, int start) {
+        return Integer.parseUnsignedInt(hash, start, start + 8, 16);
+    }
+
+    private static int parseWord(byte[] bytes, int start) {
+        var word = 0;
+
+        for (var index = start; index < start + 8; ++index) {
+            word = (word << 4) | parseHexDigit(bytes[index]);
+        }
+
+        return word;
+    }
+
+    private static int parseHexDigit(byte digit) {
+        if (digit >= '0' && digit <= '9') {
+            return digit - '0';
+        }
+
+        if (digit >= 'a' && digit <= 'f') {
+            return digit - 'a' + 10;
+        }
+
+        if (digit >= 'A' && digit <= 'F') {
+            return digit - 'A' + 10;
+        }
+
+        throw new IllegalArgumentException("invalid hex digit: " + (char) digit);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 24
+             | (bytes[offset + 1] & 0xff) << 16
+             | (bytes[offset + 2] & 0xff) << 8
+             | (bytes[offset + 3] & 0xff);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+}
@@ -1,6 +1,5 @@
 package git.domain;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -11,6 +10,7 @@ import java.util.List;
 import git.domain.serial.BlobSerializer;
 import git.domain.serial.CommitSerializer;
 import git.domain.serial.ObjectContentSerializer;
+import git.domain.serial.TagSerializer;
 import git.domain.serial.TreeSerializer;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -26,8 +26,9 @@ public class ObjectType<T extends GitObject> {
     public static final ObjectType<Blob> BLOB = new ObjectType<>("blob", Blob.class, new BlobSerializer());
     public static final ObjectType<Tree> TREE = new ObjectType<>("tree", Tree.class, new TreeSerializer());
     public static final ObjectType<Commit> COMMIT = new ObjectType<>("commit", Commit.class, new CommitSerializer());
+    public static final ObjectType<Tag> TAG = new ObjectType<>("tag", Tag.class, new TagSerializer());
 
-    public static final Collection<ObjectType> TYPES = List.of(BLOB, TREE, COMMIT);
+    public static final Collection<ObjectType> TYPES = List.of(BLOB, TREE, COMMIT, TAG);
 
     private final String name;
     private final Class<?> objectClass;
@@ -35,17 +36,26 @@ public class ObjectType<T extends GitObject> {
 
     public byte[] serialize(T object) throws IOException {
         final var content = serializeContent(object);
-        final var lengthBytes = String.valueOf(content.length).getBytes();
 
         try (
                 final var outputStream = new ByteArrayOutputStream();
                 final var dataOutputStream = new DataOutputStream(outputStream)
         ) {
+            outputStream.write(serializeHeader(content.length));
+            outputStream.write(content);
+
+            return outputStream.toByteArray();
+        }
+    }
+
+    public byte[] serializeHeader(long length) throws IOException {
+        final var lengthBytes = String.valueOf(length).getBytes();
+
+        try (final var outputStream = new ByteArrayOutputStream()) {
             outputStream.write(name.getBytes());
             outputStream.write(SPACE_BYTES);
             outputStream.write(lengthBytes);
             outputStream.write(NULL_BYTES);
-            outputStream.write(content);
 
             return outputStream.toByteArray();
         }
@@ -66,18 +76,7 @@ public class ObjectType<T extends GitObject> {
     }
 
     public T deserialize(byte[] bytes) throws IOException {
-        try (
-                final var byteInputStream = new ByteArrayInputStream(bytes);
-                final var dataInputStream = new DataInputStream(byteInputStream);
-        ) {
-            final var object = deserialize(dataInputStream);
-
-            if (byteInputStream.read() != -1) {
-                throw new IllegalStateException("buffer not fully read");
-            }
-
-            return object;
-        }
+        return serializer.deserialize(bytes);
     }
 
     public static ObjectType byName(String name) {
@@ -0,0 +1,21 @@
+package git.domain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+@SuppressWarnings("rawtypes")
+public record RawObject(
+        ObjectType type,
+        byte[] content
+) {
+
+    public byte[] serialize() throws IOException {
+        try (final var outputStream = new ByteArrayOutputStream()) {
+            outputStream.write(type.serializeHeader(content.length));
+            outputStream.write(content);
+
+            return outputStream.toByteArray();
+        }
+    }
+
+}
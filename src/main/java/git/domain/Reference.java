@@ -2,5 +2,17 @@ package git.domain;
 
 public record Reference(
         String name,
-        String hash
-) {}
\ No newline at end of file
+        String hash,
+        String target,
+        String peeled
+) {
+
+    public Reference(String name, String hash) {
+        this(name, hash, null, null);
+    }
+
+    public boolean isSymbolic() {
+        return target != null;
+    }
+
+}
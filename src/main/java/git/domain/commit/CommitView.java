@@ -0,0 +1,174 @@
+package git.domain.commit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import git.Git;
+import git.domain.AuthorSignature;
+import git.domain.Commit;
+import git.domain.ObjectId;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+
+@Accessors(fluent = true)
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class CommitView {
+
+    private static final byte[] TREE_BYTES = "tree ".getBytes();
+    private static final byte[] PARENT_BYTES = "parent ".getBytes();
+    private static final byte[] AUTHOR_BYTES = "author ".getBytes();
+    private static final byte[] COMMITTER_BYTES = "committer ".getBytes();
+
+    private final byte[] content;
+
+    @Getter
+    private final ObjectId tree;
+
+    @Getter
+    private final List<ObjectId> parents;
+    private final int authorStart;
+    private final int authorEnd;
+    private final int committerStart;
+    private final int committerEnd;
+    private final int messageStart;
+
+    private AuthorSignature author;
+    private AuthorSignature committer;
+    private String message;
+
+    public AuthorSignature author() {
+        if (author == null && authorStart != -1) {
+            author = AuthorSignature.parse(content, authorStart, authorEnd);
+        }
+
+        return author;
+    }
+
+    public AuthorSignature committer() {
+        if (committer == null && committerStart != -1) {
+            committer = AuthorSignature.parse(content, committerStart, committerEnd);
+        }
+
+        return committer;
+    }
+
+    public long commitTime() {
+        if (committerStart == -1) {
+            return 0;
+        }
+
+        final var zoneStart = lastIndexOf((byte) ' ', committerStart, committerEnd);
+        final var timeStart = lastIndexOf((byte) ' ', committerStart, zoneStart);
+
+        return AuthorSignature.parseTimestamp(content, timeStart + 1, zoneStart);
+    }
+
+    public String message() {
+        if (message == null) {
+            var messageEnd = content.length;
+            if (messageEnd > messageStart && content[messageEnd - 1] == '\n') {
+                --messageEnd;
+            }
+
+            message = new String(content, messageStart, messageEnd - messageStart, StandardCharsets.UTF_8);
+        }
+
+        return message;
+    }
+
+    public Commit toCommit() {
+        final var parentHashes = new ArrayList<String>(parents.size());
+        for (final var parent : parents) {
+            parentHashes.add(parent.name());
+        }
+
+        return new Commit(tree.name(), Collections.unmodifiableList(parentHashes), author(), committer(), message());
+    }
+
+    private int lastIndexOf(byte value, int start, int end) {
+        for (var index = end - 1; index >= start; --index) {
+            if (content[index] == value) {
+                return index;
+            }
+        }
+
+        throw new IllegalStateException("invalid signature: " + new String(content, start, end - start, StandardCharsets.UTF_8));
+    }
+
+    public static CommitView parse(byte[] content) {
+        ObjectId tree = null;
+        List<ObjectId> parents = Collections.emptyList();
+        var authorStart = -1;
+        var authorEnd = -1;
+        var committerStart = -1;
+        var committerEnd = -1;
+
+        var position = 0;
+        while (position < content.length && content[position] != '\n') {
+            final var lineEnd = findLineEnd(content, position);
+
+            if (startsWith(content, position, TREE_BYTES)) {
+                tree = parseObjectId(content, position + TREE_BYTES.length, lineEnd);
+            } else if (startsWith(content, position, PARENT_BYTES)) {
+                if (parents.isEmpty()) {
+                    parents = new ArrayList<>(1);
+                }
+
+                parents.add(parseObjectId(content, position + PARENT_BYTES.length, lineEnd));
+            } else if (startsWith(content, position, AUTHOR_BYTES)) {
+                authorStart = position + AUTHOR_BYTES.length;
+                authorEnd = lineEnd;
+            } else if (startsWith(content, position, COMMITTER_BYTES)) {
+                committerStart = position + COMMITTER_BYTES.length;
+                committerEnd = lineEnd;
+            }
+
+            position = lineEnd + 1;
+        }
+
+        if (tree == null) {
+            throw new IllegalStateException("commit has no tree");
+        }
+
+        final var messageStart = Math.min(position + 1, content.length);
+
+        return new CommitView(content, tree, parents, authorStart, authorEnd, committerStart, committerEnd, messageStart);
+    }
+
+    private static int findLineEnd(byte[] content, int position) {
+        for (var index = position; index < content.length; ++index) {
+            if (content[index] == '\n' && (index + 1 == content.length || content[index + 1] != ' ')) {
+                return index;
+            }
+        }
+
+        throw new IllegalStateException("truncated commit header");
+    }
+
+    private static boolean startsWith(byte[] content, int position, byte[] prefix) {
+        if (position + prefix.length > content.length) {
+            return false;
+        }
+
+        for (var index = 0; index < prefix.length; ++index) {
+            if (content[position + index] != prefix[index]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static ObjectId parseObjectId(byte[] content, int start, int end) {
+        if (end - start != Git.HASH_STRING_LENGTH) {
+            throw new IllegalStateException("invalid object id in commit header");
+        }
+
+        return ObjectId.fromHex(content, start);
+    }
+
+}
@@ -3,14 +3,10 @@ package git.domain.serial;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.util.HashMap;
-import java.util.regex.Pattern;
 
 import git.domain.AuthorSignature;
 import git.domain.Commit;
+import git.domain.commit.CommitView;
 
 public class CommitSerializer implements ObjectContentSerializer<Commit> {
 
@@ -25,8 +21,6 @@ public class CommitSerializer implements ObjectContentSerializer<Commit> {
     public static final String COMMITTER = "committer";
     private static final byte[] COMMITTER_BYTES = COMMITTER.getBytes();
 
-    public static final Pattern AUTHOR_PATTERN = Pattern.compile("^(.*?) <(.*?)> (\\d+) ((?:\\+|-)\\d+)$");
-
     @Override
     public void serialize(Commit commit, DataOutputStream dataOutputStream) throws IOException {
         dataOutputStream.write(TREE_BYTES);
@@ -34,8 +28,7 @@ public class CommitSerializer implements ObjectContentSerializer<Commit> {
         dataOutputStream.write(commit.treeHash().getBytes());
         dataOutputStream.write(NEW_LINE_BYTES);
 
-        final var parentHash = commit.parentHash();
-        if (parentHash != null) {
+        for (final var parentHash : commit.parentHashes()) {
             dataOutputStream.write(PARENT_BYTES);
             dataOutputStream.write(SPACE_BYTES);
             dataOutputStream.write(parentHash.getBytes());
@@ -64,55 +57,12 @@ public class CommitSerializer implements ObjectContentSerializer<Commit> {
 
     @Override
     public Commit deserialize(DataInputStream dataInputStream) throws IOException {
-        final var headers = new HashMap<String, String>();
-
-        final var buffer = new StringBuffer();
-        int value;
-        while ((value = dataInputStream.read()) != -1) {
-            if (value == '\n') {
-                if (buffer.isEmpty()) {
-                    break;
-                }
-
-                final var parts = buffer.toString().split(" ", 2);
-                headers.put(parts[0], parts[1]);
-
-                buffer.setLength(0);
-            } else {
-                buffer.append((char) value);
-            }
-        }
-
-        final var messageBytes = dataInputStream.readAllBytes();
-        final var message = new String(messageBytes, 0, messageBytes.length - 1);
-
-        final var treeHash = headers.get(TREE);
-        final var parentHash = headers.get(PARENT);
-        final var author = parseAuthor(headers.get(AUTHOR));
-        final var committer = parseAuthor(headers.get(COMMITTER));
-
-        return new Commit(treeHash, parentHash, author, committer, message);
+        return deserialize(dataInputStream.readAllBytes());
     }
 
-    public AuthorSignature parseAuthor(String content) {
-        if (content == null) {
-            return null;
-        }
-
-        final var matcher = AUTHOR_PATTERN.matcher(content);
-        if (!matcher.find()) {
-            throw new IllegalArgumentException("invalid author: " + content);
-        }
-
-        final var login = matcher.group(1);
-        final var email = matcher.group(2);
-
-        final var instant = Instant.ofEpochSecond(Long.parseLong(matcher.group(3)));
-        final var zoneId = ZoneId.of(matcher.group(4));
-
-        final var when = ZonedDateTime.ofInstant(instant, zoneId);
-
-        return new AuthorSignature(login, email, when);
+    @Override
+    public Commit deserialize(byte[] bytes) {
+        return CommitView.parse(bytes).toCommit();
     }
 
-}
\ No newline at end of file
+}
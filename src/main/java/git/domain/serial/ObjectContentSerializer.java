@@ -1,5 +1,6 @@
 package git.domain.serial;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -12,4 +13,19 @@ public interface ObjectContentSerializer<T extends GitObject> {
 
     T deserialize(DataInputStream dataInputStream) throws IOException;
 
-}
\ No newline at end of file
+    default T deserialize(byte[] bytes) throws IOException {
+        try (
+                final var byteInputStream = new ByteArrayInputStream(bytes);
+                final var dataInputStream = new DataInputStream(byteInputStream);
+        ) {
+            final var object = deserialize(dataInputStream);
+
+            if (byteInputStream.read() != -1) {
+                throw new IllegalStateException("buffer not fully read");
+            }
+
+            return object;
+        }
+    }
+
+}
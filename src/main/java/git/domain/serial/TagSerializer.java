@@ -0,0 +1,101 @@
+package git.domain.serial;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import git.domain.AuthorSignature;
+import git.domain.Tag;
+
+public class TagSerializer implements ObjectContentSerializer<Tag> {
+
+    private static final byte[] SPACE_BYTES = { ' ' };
+    private static final byte[] NEW_LINE_BYTES = { '\n' };
+    public static final String OBJECT = "object";
+    private static final byte[] OBJECT_BYTES = OBJECT.getBytes();
+    public static final String TYPE = "type";
+    private static final byte[] TYPE_BYTES = TYPE.getBytes();
+    public static final String TAG = "tag";
+    private static final byte[] TAG_BYTES = TAG.getBytes();
+    public static final String TAGGER = "tagger";
+    private static final byte[] TAGGER_BYTES = TAGGER.getBytes();
+
+    @Override
+    public void serialize(Tag tag, DataOutputStream dataOutputStream) throws IOException {
+        serializeHeader(OBJECT_BYTES, tag.objectHash(), dataOutputStream);
+        serializeHeader(TYPE_BYTES, tag.objectType(), dataOutputStream);
+        serializeHeader(TAG_BYTES, tag.name(), dataOutputStream);
+
+        if (tag.tagger() != null) {
+            CommitSerializer.serializeAuthor(TAGGER_BYTES, tag.tagger(), dataOutputStream);
+        }
+
+        if (tag.message() != null) {
+            dataOutputStream.write(NEW_LINE_BYTES);
+            dataOutputStream.write(tag.message().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void serializeHeader(byte[] keyBytes, String value, DataOutputStream dataOutputStream) throws IOException {
+        dataOutputStream.write(keyBytes);
+        dataOutputStream.write(SPACE_BYTES);
+        dataOutputStream.write(value.getBytes(StandardCharsets.UTF_8));
+        dataOutputStream.write(NEW_LINE_BYTES);
+    }
+
+    @Override
+    public Tag deserialize(DataInputStream dataInputStream) throws IOException {
+        return deserialize(dataInputStream.readAllBytes());
+    }
+
+    @Override
+    public Tag deserialize(byte[] bytes) {
+        String objectHash = null;
+        String objectType = null;
+        String name = null;
+        AuthorSignature tagger = null;
+
+        var position = 0;
+        while (position < bytes.length && bytes[position] != '\n') {
+            var end = position;
+            while (end < bytes.length && bytes[end] != '\n') {
+                ++end;
+            }
+
+            var space = position;
+            while (space < end && bytes[space] != ' ') {
+                ++space;
+            }
+
+            if (space == end) {
+                throw new IllegalStateException("invalid tag header: " + new String(bytes, position, end - position, StandardCharsets.UTF_8));
+            }
+
+            final var key = new String(bytes, position, space - position, StandardCharsets.US_ASCII);
+            final var value = new String(bytes, space + 1, end - space - 1, StandardCharsets.UTF_8);
+
+            switch (key) {
+                case OBJECT -> objectHash = value;
+                case TYPE -> objectType = value;
+                case TAG -> name = value;
+                case TAGGER -> tagger = AuthorSignature.parse(bytes, space + 1, end);
+                default -> {}
+            }
+
+            position = end + 1;
+        }
+
+        if (objectHash == null || objectType == null || name == null) {
+            throw new IllegalStateException("tag is missing its object, type or name");
+        }
+
+        String message = null;
+        if (position < bytes.length) {
+            message = new String(bytes, position + 1, bytes.length - position - 1, StandardCharsets.UTF_8);
+        }
+
+        return new Tag(objectHash, objectType, name, tagger, message);
+    }
+
+}
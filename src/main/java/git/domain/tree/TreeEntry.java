@@ -1,14 +1,53 @@
 package git.domain.tree;
 
+import git.domain.ObjectId;
+
 public record TreeEntry(
         TreeEntryMode mode,
         String name,
-        String hash
+        ObjectId id
 ) implements Comparable<TreeEntry> {
 
+    public TreeEntry(TreeEntryMode mode, String name, String hash) {
+        this(mode, name, ObjectId.fromString(hash));
+    }
+
+    public String hash() {
+        return id.name();
+    }
+
+    public boolean isDirectory() {
+        return mode.type() == TreeEntryModeType.DIRECTORY;
+    }
+
     @Override
     public int compareTo(TreeEntry other) {
-        return name.compareTo(other.name);
+        return compareNames(name, isDirectory(), other.name, other.isDirectory());
+    }
+
+    public static int compareNames(String left, boolean leftDirectory, String right, boolean rightDirectory) {
+        final var leftLength = left.length();
+        final var rightLength = right.length();
+
+        var leftIndex = 0;
+        var rightIndex = 0;
+
+        while (leftIndex < leftLength && rightIndex < rightLength) {
+            final var leftCodePoint = left.codePointAt(leftIndex);
+            final var rightCodePoint = right.codePointAt(rightIndex);
+
+            if (leftCodePoint != rightCodePoint) {
+                return Integer.compare(leftCodePoint, rightCodePoint);
+            }
+
+            leftIndex += Character.charCount(leftCodePoint);
+            rightIndex += Character.charCount(rightCodePoint);
+        }
+
+        final var leftNext = leftIndex < leftLength ? left.codePointAt(leftIndex) : leftDirectory ? '/' : 0;
+        final var rightNext = rightIndex < rightLength ? right.codePointAt(rightIndex) : rightDirectory ? '/' : 0;
+
+        return Integer.compare(leftNext, rightNext);
     }
 
-}
\ No newline at end of file
+}
@@ -8,22 +8,43 @@ public record TreeEntryMode(
         int permission
 ) {
 
+    private static final TreeEntryMode DIRECTORY = new TreeEntryMode(TreeEntryModeType.DIRECTORY, 0);
+    private static final TreeEntryMode REGULAR_FILE = new TreeEntryMode(TreeEntryModeType.REGULAR_FILE, 0644);
+    private static final TreeEntryMode EXECUTABLE_FILE = new TreeEntryMode(TreeEntryModeType.REGULAR_FILE, 0755);
+
     public TreeEntryMode {
         if (type.isPermissionless() && permission != 0) {
             throw new IllegalArgumentException("%s is permissionless but provided: %o".formatted(type, permission));
         }
     }
 
+    public int value() {
+        return type.shifted() + permission;
+    }
+
     public String format() {
-        return Integer.toOctalString(type.shifted() + permission);
+        return Integer.toOctalString(value());
+    }
+
+    public static TreeEntryMode valueOf(int value) {
+        return switch (value) {
+            case 0040000 -> DIRECTORY;
+            case 0100644 -> REGULAR_FILE;
+            case 0100755 -> EXECUTABLE_FILE;
+            default -> new TreeEntryMode(TreeEntryModeType.match(value), value & 0b0_111_111_111);
+        };
     }
 
     public static TreeEntryMode directory() {
-        return new TreeEntryMode(TreeEntryModeType.DIRECTORY, 0);
+        return DIRECTORY;
     }
 
     public static TreeEntryMode regularFile(int permission) {
-        return new TreeEntryMode(TreeEntryModeType.REGULAR_FILE, permission);
+        return switch (permission) {
+            case 0644 -> REGULAR_FILE;
+            case 0755 -> EXECUTABLE_FILE;
+            default -> new TreeEntryMode(TreeEntryModeType.REGULAR_FILE, permission);
+        };
     }
 
     public static TreeEntryMode regularFile(PosixFileAttributes attributes) {
@@ -0,0 +1,108 @@
+package git.domain.tree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import git.domain.ObjectId;
+
+public class TreeIterator {
+
+    private final byte[] content;
+    private final int end;
+
+    private int position;
+
+    private int mode;
+    private int nameStart;
+    private int nameEnd;
+    private String name;
+
+    public TreeIterator(byte[] content) {
+        this(content, 0, content.length);
+    }
+
+    public TreeIterator(byte[] content, int offset, int length) {
+        this.content = content;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    public boolean next() {
+        if (position >= end) {
+            return false;
+        }
+
+        var value = 0;
+        byte current;
+        while ((current = content[position++]) != ' ') {
+            if (current < '0' || current > '7' || position >= end) {
+                throw new IllegalStateException("invalid tree entry mode");
+            }
+
+            value = (value << 3) | (current - '0');
+        }
+
+        nameStart = position;
+        while (position < end && content[position] != 0) {
+            ++position;
+        }
+
+        nameEnd = position;
+        position += 1 + ObjectId.BYTES;
+
+        if (position > end) {
+            throw new IllegalStateException("truncated tree entry");
+        }
+
+        mode = value;
+        name = null;
+
+        return true;
+    }
+
+    public int mode() {
+        return mode;
+    }
+
+    public TreeEntryModeType modeType() {
+        return TreeEntryModeType.match(mode);
+    }
+
+    public TreeEntryMode entryMode() {
+        return TreeEntryMode.valueOf(mode);
+    }
+
+    public String name() {
+        if (name == null) {
+            name = new String(content, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8);
+        }
+
+        return name;
+    }
+
+    public int nameLength() {
+        return nameEnd - nameStart;
+    }
+
+    public void writeNameTo(OutputStream outputStream) throws IOException {
+        outputStream.write(content, nameStart, nameEnd - nameStart);
+    }
+
+    public ObjectId objectId() {
+        return ObjectId.fromBytes(content, getObjectIdStart());
+    }
+
+    public void copyObjectId(byte[] bytes, int offset) {
+        System.arraycopy(content, getObjectIdStart(), bytes, offset, ObjectId.BYTES);
+    }
+
+    public TreeEntry entry() {
+        return new TreeEntry(entryMode(), name(), objectId());
+    }
+
+    private int getObjectIdStart() {
+        return nameEnd + 1;
+    }
+
+}
@@ -0,0 +1,334 @@
+package git.graph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import git.Git;
+import git.domain.ObjectId;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class CommitGraph {
+
+    public static final byte[] SIGNATURE = { 'C', 'G', 'P', 'H' };
+    public static final int VERSION = 1;
+    public static final int HASH_VERSION = 1;
+
+    public static final int OID_FANOUT_CHUNK = 0x4f494446;
+    public static final int OID_LOOKUP_CHUNK = 0x4f49444c;
+    public static final int COMMIT_DATA_CHUNK = 0x43444154;
+    public static final int EXTRA_EDGE_CHUNK = 0x45444745;
+
+    public static final int FANOUT_SIZE = 256;
+    public static final int COMMIT_DATA_LENGTH = Git.HASH_BYTES_LENGTH + 16;
+
+    public static final int NO_PARENT = 0x7000_0000;
+    public static final int EXTRA_EDGE_FLAG = 0x8000_0000;
+    public static final int LAST_EDGE_FLAG = 0x8000_0000;
+
+    public static final int GENERATION_MAX = 0x3fff_ffff;
+    public static final long COMMIT_TIME_MASK = 0x3_ffff_ffffL;
+
+    private static final int HEADER_LENGTH = SIGNATURE.length + 4;
+    private static final int CHUNK_LOOKUP_ENTRY_LENGTH = Integer.BYTES + Long.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int commitCount;
+    private final int fanoutStart;
+    private final int lookupStart;
+    private final int dataStart;
+    private final int edgesStart;
+
+    public int size() {
+        return commitCount;
+    }
+
+    public int findPosition(ObjectId id) {
+        final var first = id.firstByte();
+
+        var low = first == 0 ? 0 : getFanout(first - 1);
+        var high = getFanout(first) - 1;
+
+        while (low <= high) {
+            final var middle = (low + high) >>> 1;
+            final var comparison = getObjectId(middle).compareTo(id);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -1;
+    }
+
+    public ObjectId getObjectId(int position) {
+        return readObjectId(lookupStart + position * Git.HASH_BYTES_LENGTH);
+    }
+
+    public ObjectId getTree(int position) {
+        return readObjectId(getDataOffset(position));
+    }
+
+    public int[] getParentPositions(int position) {
+        final var offset = getDataOffset(position) + Git.HASH_BYTES_LENGTH;
+        final var first = buffer.getInt(offset);
+        final var second = buffer.getInt(offset + Integer.BYTES);
+
+        if (first == NO_PARENT) {
+            return new int[0];
+        }
+
+        if (second == NO_PARENT) {
+            return new int[] { first };
+        }
+
+        if ((second & EXTRA_EDGE_FLAG) == 0) {
+            return new int[] { first, second };
+        }
+
+        final var parents = new ArrayList<Integer>();
+        parents.add(first);
+
+        var edgeOffset = edgesStart + (second & ~EXTRA_EDGE_FLAG) * Integer.BYTES;
+        while (true) {
+            final var edge = buffer.getInt(edgeOffset);
+            parents.add(edge & ~LAST_EDGE_FLAG);
+
+            if ((edge & LAST_EDGE_FLAG) != 0) {
+                break;
+            }
+
+            edgeOffset += Integer.BYTES;
+        }
+
+        return parents.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public int getGeneration(int position) {
+        return buffer.getInt(getDataOffset(position) + Git.HASH_BYTES_LENGTH + 2 * Integer.BYTES) >>> 2;
+    }
+
+    public long getCommitTime(int position) {
+        final var offset = getDataOffset(position) + Git.HASH_BYTES_LENGTH + 2 * Integer.BYTES;
+        final var high = buffer.getInt(offset) & 0b11L;
+        final var low = Integer.toUnsignedLong(buffer.getInt(offset + Integer.BYTES));
+
+        return (high << 32) | low;
+    }
+
+    private int getFanout(int index) {
+        return buffer.getInt(fanoutStart + index * Integer.BYTES);
+    }
+
+    private int getDataOffset(int position) {
+        return dataStart + position * COMMIT_DATA_LENGTH;
+    }
+
+    private ObjectId readObjectId(int offset) {
+        return new ObjectId(
+                buffer.getInt(offset),
+                buffer.getInt(offset + 4),
+                buffer.getInt(offset + 8),
+                buffer.getInt(offset + 12),
+                buffer.getInt(offset + 16)
+        );
+    }
+
+    public static CommitGraph read(Path path) throws IOException {
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static CommitGraph parse(ByteBuffer buffer) {
+        final var signature = new byte[SIGNATURE.length];
+        buffer.get(0, signature);
+
+        if (!Arrays.equals(SIGNATURE, signature)) {
+            throw new IllegalStateException("invalid commit-graph signature");
+        }
+
+        final var version = buffer.get(SIGNATURE.length);
+        if (version != VERSION) {
+            throw new IllegalStateException("unsupported commit-graph version: " + version);
+        }
+
+        final var hashVersion = buffer.get(SIGNATURE.length + 1);
+        if (hashVersion != HASH_VERSION) {
+            throw new IllegalStateException("unsupported commit-graph hash version: " + hashVersion);
+        }
+
+        final var chunkCount = Byte.toUnsignedInt(buffer.get(SIGNATURE.length + 2));
+        if (buffer.get(SIGNATURE.length + 3) != 0) {
+            throw new IllegalStateException("split commit-graphs are not supported");
+        }
+
+        final var chunks = new HashMap<Integer, Integer>();
+        for (var index = 0; index < chunkCount; ++index) {
+            final var entryOffset = HEADER_LENGTH + index * CHUNK_LOOKUP_ENTRY_LENGTH;
+            chunks.put(buffer.getInt(entryOffset), Math.toIntExact(buffer.getLong(entryOffset + Integer.BYTES)));
+        }
+
+        final var fanoutStart = getRequiredChunk(chunks, OID_FANOUT_CHUNK, "OIDF");
+        final var lookupStart = getRequiredChunk(chunks, OID_LOOKUP_CHUNK, "OIDL");
+        final var dataStart = getRequiredChunk(chunks, COMMIT_DATA_CHUNK, "CDAT");
+        final var edgesStart = chunks.getOrDefault(EXTRA_EDGE_CHUNK, -1);
+
+        final var commitCount = buffer.getInt(fanoutStart + (FANOUT_SIZE - 1) * Integer.BYTES);
+
+        return new CommitGraph(buffer, commitCount, fanoutStart, lookupStart, dataStart, edgesStart);
+    }
+
+    private static int getRequiredChunk(HashMap<Integer, Integer> chunks, int id, String name) {
+        final var offset = chunks.get(id);
+        if (offset == null) {
+            throw new IllegalStateException("commit-graph is missing the %s chunk".formatted(name));
+        }
+
+        return offset;
+    }
+
+    public static void write(Collection<Entry> entries, OutputStream outputStream) throws IOException, NoSuchAlgorithmException {
+        final var sorted = new ArrayList<>(entries);
+        Collections.sort(sorted);
+
+        final var positions = new HashMap<ObjectId, Integer>(sorted.size() * 2);
+        for (var index = 0; index < sorted.size(); ++index) {
+            positions.put(sorted.get(index).id(), index);
+        }
+
+        final var edges = new ArrayList<Integer>();
+        final var hasEdges = sorted.stream().anyMatch((entry) -> entry.parents().size() > 2);
+        final var chunkCount = hasEdges ? 4 : 3;
+
+        final var fanoutLength = (long) FANOUT_SIZE * Integer.BYTES;
+        final var lookupLength = (long) sorted.size() * Git.HASH_BYTES_LENGTH;
+        final var dataLength = (long) sorted.size() * COMMIT_DATA_LENGTH;
+
+        final var fanoutStart = HEADER_LENGTH + (long) (chunkCount + 1) * CHUNK_LOOKUP_ENTRY_LENGTH;
+        final var lookupStart = fanoutStart + fanoutLength;
+        final var dataStart = lookupStart + lookupLength;
+        final var edgesStart = dataStart + dataLength;
+
+        final var digest = MessageDigest.getInstance("SHA-1");
+        final var dataOutputStream = new DataOutputStream(new DigestOutputStream(outputStream, digest));
+
+        final var data = new ByteArrayOutputStream((int) dataLength);
+        final var dataStream = new DataOutputStream(data);
+
+        for (final var entry : sorted) {
+            entry.tree().writeTo(dataStream);
+
+            final var parents = entry.parents();
+            dataStream.writeInt(parents.isEmpty() ? NO_PARENT : getPosition(positions, parents.get(0)));
+
+            if (parents.size() <= 1) {
+                dataStream.writeInt(NO_PARENT);
+            } else if (parents.size() == 2) {
+                dataStream.writeInt(getPosition(positions, parents.get(1)));
+            } else {
+                dataStream.writeInt(EXTRA_EDGE_FLAG | edges.size());
+
+                for (var index = 1; index < parents.size(); ++index) {
+                    final var last = index == parents.size() - 1;
+                    edges.add(getPosition(positions, parents.get(index)) | (last ? LAST_EDGE_FLAG : 0));
+                }
+            }
+
+            final var generation = Math.min(entry.generation(), GENERATION_MAX);
+            final var commitTime = entry.commitTime() & COMMIT_TIME_MASK;
+
+            dataStream.writeInt((generation << 2) | (int) (commitTime >>> 32));
+            dataStream.writeInt((int) commitTime);
+        }
+
+        final var edgesLength = (long) edges.size() * Integer.BYTES;
+
+        dataOutputStream.write(SIGNATURE);
+        dataOutputStream.writeByte(VERSION);
+        dataOutputStream.writeByte(HASH_VERSION);
+        dataOutputStream.writeByte(chunkCount);
+        dataOutputStream.writeByte(0);
+
+        writeChunkLookupEntry(dataOutputStream, OID_FANOUT_CHUNK, fanoutStart);
+        writeChunkLookupEntry(dataOutputStream, OID_LOOKUP_CHUNK, lookupStart);
+        writeChunkLookupEntry(dataOutputStream, COMMIT_DATA_CHUNK, dataStart);
+        if (hasEdges) {
+            writeChunkLookupEntry(dataOutputStream, EXTRA_EDGE_CHUNK, edgesStart);
+        }
+        writeChunkLookupEntry(dataOutputStream, 0, edgesStart + edgesLength);
+
+        final var fanout = new int[FANOUT_SIZE];
+        for (final var entry : sorted) {
+            ++fanout[entry.id().firstByte()];
+        }
+
+        var count = 0;
+        for (final var value : fanout) {
+            count += value;
+            dataOutputStream.writeInt(count);
+        }
+
+        for (final var entry : sorted) {
+            entry.id().writeTo(dataOutputStream);
+        }
+
+        data.writeTo(dataOutputStream);
+
+        for (final var edge : edges) {
+            dataOutputStream.writeInt(edge);
+        }
+
+        dataOutputStream.flush();
+        outputStream.write(digest.digest());
+    }
+
+    private static void writeChunkLookupEntry(DataOutputStream dataOutputStream, int id, long offset) throws IOException {
+        dataOutputStream.writeInt(id);
+        dataOutputStream.writeLong(offset);
+    }
+
+    private static int getPosition(HashMap<ObjectId, Integer> positions, ObjectId id) {
+        final var position = positions.get(id);
+        if (position == null) {
+            throw new IllegalStateException("parent %s is not part of the commit-graph".formatted(id));
+        }
+
+        return position;
+    }
+
+    public static record Entry(
+            ObjectId id,
+            ObjectId tree,
+            List<ObjectId> parents,
+            int generation,
+            long commitTime
+    ) implements Comparable<Entry> {
+
+        @Override
+        public int compareTo(Entry other) {
+            return id.compareTo(other.id);
+        }
+
+    }
+
+}
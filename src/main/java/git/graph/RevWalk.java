@@ -0,0 +1,216 @@
+package git.graph;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import git.Git;
+import git.domain.ObjectId;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class RevWalk {
+
+    public static final Comparator<RevCommit> BY_COMMIT_TIME = Comparator.comparingLong(RevCommit::commitTime).reversed();
+
+    private final Git git;
+    private final CommitGraph graph;
+    private final Set<ObjectId> shallow;
+    private final Map<ObjectId, RevCommit> commits = new HashMap<>();
+    private final Map<ObjectId, Integer> generations = new HashMap<>();
+
+    public RevCommit lookup(ObjectId id) throws FileNotFoundException, IOException {
+        var commit = commits.get(id);
+
+        if (commit == null) {
+            commit = parse(id);
+            commits.put(id, commit);
+        }
+
+        return commit;
+    }
+
+    private RevCommit parse(ObjectId id) throws FileNotFoundException, IOException {
+        if (graph != null) {
+            final var position = graph.findPosition(id);
+
+            if (position != -1) {
+                final var parentPositions = graph.getParentPositions(position);
+                final var parents = new ArrayList<ObjectId>(parentPositions.length);
+
+                for (final var parentPosition : parentPositions) {
+                    parents.add(graph.getObjectId(parentPosition));
+                }
+
+                return new RevCommit(id, graph.getTree(position), parents, graph.getCommitTime(position), graph.getGeneration(position));
+            }
+        }
+
+        final var view = git.readCommitView(id.name());
+        final var parents = shallow.contains(id) ? List.<ObjectId>of() : view.parents();
+
+        return new RevCommit(id, view.tree(), parents, view.commitTime(), RevCommit.GENERATION_UNKNOWN);
+    }
+
+    public int getGeneration(RevCommit start) throws FileNotFoundException, IOException {
+        if (start.hasGeneration()) {
+            return start.generation();
+        }
+
+        final var known = generations.get(start.id());
+        if (known != null) {
+            return known;
+        }
+
+        final var stack = new ArrayDeque<RevCommit>();
+        stack.push(start);
+
+        while (!stack.isEmpty()) {
+            final var commit = stack.peek();
+
+            if (generations.containsKey(commit.id())) {
+                stack.pop();
+                continue;
+            }
+
+            var generation = 1;
+            var ready = true;
+
+            for (final var parentId : commit.parents()) {
+                final var parent = lookup(parentId);
+
+                if (parent.hasGeneration()) {
+                    generation = Math.max(generation, parent.generation() + 1);
+                    continue;
+                }
+
+                final var parentGeneration = generations.get(parentId);
+                if (parentGeneration == null) {
+                    stack.push(parent);
+                    ready = false;
+                } else {
+                    generation = Math.max(generation, parentGeneration + 1);
+                }
+            }
+
+            if (ready) {
+                generations.put(commit.id(), Math.min(generation, CommitGraph.GENERATION_MAX));
+                stack.pop();
+            }
+        }
+
+        return generations.get(start.id());
+    }
+
+    private int getKnownGeneration(RevCommit commit) {
+        return commit.hasGeneration() ? commit.generation() : generations.get(commit.id());
+    }
+
+    public List<RevCommit> walk(Collection<ObjectId> starts, Order order, int limit) throws FileNotFoundException, IOException {
+        return switch (order) {
+            case DATE -> walkByDate(starts, limit);
+            case TOPOLOGICAL -> walkTopologically(starts, limit);
+        };
+    }
+
+    private List<RevCommit> walkByDate(Collection<ObjectId> starts, int limit) throws FileNotFoundException, IOException {
+        final var result = new ArrayList<RevCommit>();
+        final var seen = new HashSet<ObjectId>();
+        final var queue = new PriorityQueue<Pending>(Comparator.comparing(Pending::commit, BY_COMMIT_TIME).thenComparingLong(Pending::sequence));
+        var sequence = 0L;
+
+        for (final var start : starts) {
+            if (seen.add(start)) {
+                queue.add(new Pending(lookup(start), sequence++));
+            }
+        }
+
+        while (!queue.isEmpty() && result.size() < limit) {
+            final var commit = queue.poll().commit();
+            result.add(commit);
+
+            for (final var parent : commit.parents()) {
+                if (seen.add(parent)) {
+                    queue.add(new Pending(lookup(parent), sequence++));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private List<RevCommit> walkTopologically(Collection<ObjectId> starts, int limit) throws FileNotFoundException, IOException {
+        final var reachable = collectReachable(starts);
+
+        for (final var commit : reachable) {
+            getGeneration(commit);
+        }
+
+        reachable.sort(Comparator.<RevCommit>comparingInt(this::getKnownGeneration).reversed().thenComparing(BY_COMMIT_TIME));
+
+        return reachable.size() > limit ? reachable.subList(0, limit) : reachable;
+    }
+
+    public List<RevCommit> collectReachable(Collection<ObjectId> starts) throws FileNotFoundException, IOException {
+        final var result = new ArrayList<RevCommit>();
+        final var seen = new HashSet<ObjectId>();
+        final var queue = new ArrayDeque<ObjectId>();
+
+        for (final var start : starts) {
+            if (seen.add(start)) {
+                queue.add(start);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            final var commit = lookup(queue.poll());
+            result.add(commit);
+
+            for (final var parent : commit.parents()) {
+                if (seen.add(parent)) {
+                    queue.add(parent);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static record Pending(
+            RevCommit commit,
+            long sequence
+    ) {}
+
+    public static enum Order {
+
+        DATE,
+        TOPOLOGICAL;
+
+    }
+
+    public static record RevCommit(
+            ObjectId id,
+            ObjectId tree,
+            List<ObjectId> parents,
+            long commitTime,
+            int generation
+    ) {
+
+        public static final int GENERATION_UNKNOWN = 0;
+
+        public boolean hasGeneration() {
+            return generation != GENERATION_UNKNOWN;
+        }
+
+    }
+
+}
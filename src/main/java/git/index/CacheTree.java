@@ -0,0 +1,36 @@
+package git.index;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public record CacheTree(
+        String name,
+        int entryCount,
+        String hash,
+        List<CacheTree> children
+) {
+
+    public static final int INVALID = -1;
+
+    public boolean isValid() {
+        return entryCount != INVALID;
+    }
+
+    public Map<String, CacheTree> flatten() {
+        final var trees = new HashMap<String, CacheTree>();
+        flatten("", trees);
+
+        return trees;
+    }
+
+    private void flatten(String path, Map<String, CacheTree> trees) {
+        trees.put(path, this);
+
+        for (final var child : children) {
+            final var childPath = path.isEmpty() ? child.name() : path + "/" + child.name();
+            child.flatten(childPath, trees);
+        }
+    }
+
+}
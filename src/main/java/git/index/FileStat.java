@@ -0,0 +1,64 @@
+package git.index;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+public record FileStat(
+        int ctimeSeconds,
+        int ctimeNanoseconds,
+        int mtimeSeconds,
+        int mtimeNanoseconds,
+        int device,
+        int inode,
+        int uid,
+        int gid,
+        int size
+) {
+
+    public boolean isModifiedAtOrAfter(FileTime time) {
+        final var instant = time.toInstant();
+
+        final var seconds = Integer.toUnsignedLong(mtimeSeconds);
+        if (seconds != instant.getEpochSecond()) {
+            return seconds > instant.getEpochSecond();
+        }
+
+        return mtimeNanoseconds >= instant.getNano();
+    }
+
+    public static FileStat of(BasicFileAttributes attributes) {
+        final var ctime = attributes.creationTime().toInstant();
+        final var mtime = attributes.lastModifiedTime().toInstant();
+
+        return new FileStat(
+                (int) ctime.getEpochSecond(),
+                ctime.getNano(),
+                (int) mtime.getEpochSecond(),
+                mtime.getNano(),
+                0,
+                0,
+                0,
+                0,
+                (int) attributes.size()
+        );
+    }
+
+    public static FileStat of(Map<String, Object> attributes) {
+        final var ctime = ((FileTime) attributes.get("ctime")).toInstant();
+        final var mtime = ((FileTime) attributes.get("lastModifiedTime")).toInstant();
+
+        return new FileStat(
+                (int) ctime.getEpochSecond(),
+                ctime.getNano(),
+                (int) mtime.getEpochSecond(),
+                mtime.getNano(),
+                ((Long) attributes.get("dev")).intValue(),
+                ((Long) attributes.get("ino")).intValue(),
+                (Integer) attributes.get("uid"),
+                (Integer) attributes.get("gid"),
+                ((Long) attributes.get("size")).intValue()
+        );
+    }
+
+}
@@ -0,0 +1,15 @@
+package git.index;
+
+import java.util.Collections;
+import java.util.List;
+
+public record Index(
+        List<IndexEntry> entries,
+        CacheTree cacheTree
+) {
+
+    public static Index empty() {
+        return new Index(Collections.emptyList(), null);
+    }
+
+}
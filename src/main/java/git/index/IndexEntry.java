@@ -0,0 +1,18 @@
+package git.index;
+
+import git.domain.tree.TreeEntry;
+import git.domain.tree.TreeEntryMode;
+
+public record IndexEntry(
+        FileStat stat,
+        TreeEntryMode mode,
+        String hash,
+        String path
+) implements Comparable<IndexEntry> {
+
+    @Override
+    public int compareTo(IndexEntry other) {
+        return TreeEntry.compareNames(path, false, other.path, false);
+    }
+
+}
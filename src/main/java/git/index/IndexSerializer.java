@@ -0,0 +1,228 @@
+package git.index;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import git.Git;
+import git.domain.tree.TreeEntryMode;
+
+public class IndexSerializer {
+
+    public static final byte[] SIGNATURE = { 'D', 'I', 'R', 'C' };
+    public static final int VERSION = 2;
+
+    public static final byte[] TREE_EXTENSION = { 'T', 'R', 'E', 'E' };
+
+    public static final int ENTRY_FIXED_LENGTH = 62;
+    public static final int NAME_MASK = 0x0fff;
+    public static final int EXTENDED_FLAG = 0x4000;
+
+    public void serialize(Index index, OutputStream outputStream) throws IOException, NoSuchAlgorithmException {
+        final var digest = MessageDigest.getInstance("SHA-1");
+        final var dataOutputStream = new DataOutputStream(new DigestOutputStream(outputStream, digest));
+
+        final var entries = index.entries();
+
+        dataOutputStream.write(SIGNATURE);
+        dataOutputStream.writeInt(VERSION);
+        dataOutputStream.writeInt(entries.size());
+
+        for (final var entry : entries) {
+            serializeEntry(entry, dataOutputStream);
+        }
+
+        final var cacheTree = index.cacheTree();
+        if (cacheTree != null) {
+            final var extensionOutputStream = new ByteArrayOutputStream();
+            serializeCacheTree(cacheTree, new DataOutputStream(extensionOutputStream));
+
+            dataOutputStream.write(TREE_EXTENSION);
+            dataOutputStream.writeInt(extensionOutputStream.size());
+            extensionOutputStream.writeTo(dataOutputStream);
+        }
+
+        dataOutputStream.flush();
+        outputStream.write(digest.digest());
+    }
+
+    public static void serializeEntry(IndexEntry entry, DataOutputStream dataOutputStream) throws IOException {
+        final var stat = entry.stat();
+        final var pathBytes = entry.path().getBytes(StandardCharsets.UTF_8);
+
+        dataOutputStream.writeInt(stat.ctimeSeconds());
+        dataOutputStream.writeInt(stat.ctimeNanoseconds());
+        dataOutputStream.writeInt(stat.mtimeSeconds());
+        dataOutputStream.writeInt(stat.mtimeNanoseconds());
+        dataOutputStream.writeInt(stat.device());
+        dataOutputStream.writeInt(stat.inode());
+        dataOutputStream.writeInt(entry.mode().value());
+        dataOutputStream.writeInt(stat.uid());
+        dataOutputStream.writeInt(stat.gid());
+        dataOutputStream.writeInt(stat.size());
+        dataOutputStream.write(Git.HEX.parseHex(entry.hash()));
+        dataOutputStream.writeShort(Math.min(pathBytes.length, NAME_MASK));
+        dataOutputStream.write(pathBytes);
+
+        final var length = ENTRY_FIXED_LENGTH + pathBytes.length;
+        dataOutputStream.write(new byte[getPaddingLength(length)]);
+    }
+
+    public static void serializeCacheTree(CacheTree tree, DataOutputStream dataOutputStream) throws IOException {
+        dataOutputStream.write(tree.name().getBytes(StandardCharsets.UTF_8));
+        dataOutputStream.write(0);
+        dataOutputStream.write((tree.entryCount() + " " + tree.children().size() + "\n").getBytes());
+
+        if (tree.isValid()) {
+            dataOutputStream.write(Git.HEX.parseHex(tree.hash()));
+        }
+
+        for (final var child : tree.children()) {
+            serializeCacheTree(child, dataOutputStream);
+        }
+    }
+
+    public Index deserialize(ByteBuffer buffer) throws NoSuchAlgorithmException {
+        final var checksumStart = buffer.limit() - Git.HASH_BYTES_LENGTH;
+        verifyChecksum(buffer, checksumStart);
+
+        final var signature = new byte[SIGNATURE.length];
+        buffer.get(signature);
+
+        if (!Arrays.equals(SIGNATURE, signature)) {
+            throw new IllegalStateException("invalid index signature");
+        }
+
+        final var version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalStateException("unsupported index version: " + version);
+        }
+
+        final var entryCount = buffer.getInt();
+        final var entries = new ArrayList<IndexEntry>(entryCount);
+
+        for (var index = 0; index < entryCount; ++index) {
+            entries.add(deserializeEntry(buffer));
+        }
+
+        CacheTree cacheTree = null;
+        while (buffer.position() < checksumStart) {
+            final var extension = new byte[TREE_EXTENSION.length];
+            buffer.get(extension);
+
+            final var size = buffer.getInt();
+            final var extensionBuffer = buffer.slice(buffer.position(), size);
+            buffer.position(buffer.position() + size);
+
+            if (Arrays.equals(TREE_EXTENSION, extension)) {
+                cacheTree = deserializeCacheTree(extensionBuffer);
+            } else if (extension[0] < 'A' || extension[0] > 'Z') {
+                throw new IllegalStateException("unsupported required index extension: " + new String(extension));
+            }
+        }
+
+        return new Index(Collections.unmodifiableList(entries), cacheTree);
+    }
+
+    public static IndexEntry deserializeEntry(ByteBuffer buffer) {
+        final var start = buffer.position();
+
+        final var ctimeSeconds = buffer.getInt();
+        final var ctimeNanoseconds = buffer.getInt();
+        final var mtimeSeconds = buffer.getInt();
+        final var mtimeNanoseconds = buffer.getInt();
+        final var device = buffer.getInt();
+        final var inode = buffer.getInt();
+        final var mode = TreeEntryMode.valueOf(buffer.getInt());
+        final var uid = buffer.getInt();
+        final var gid = buffer.getInt();
+        final var size = buffer.getInt();
+
+        final var hashBytes = new byte[Git.HASH_BYTES_LENGTH];
+        buffer.get(hashBytes);
+
+        final var flags = Short.toUnsignedInt(buffer.getShort());
+        if ((flags & EXTENDED_FLAG) != 0) {
+            throw new IllegalStateException("extended flags are not supported in version " + VERSION);
+        }
+
+        var pathLength = flags & NAME_MASK;
+        if (pathLength == NAME_MASK) {
+            pathLength = 0;
+            while (buffer.get(buffer.position() + pathLength) != 0) {
+                ++pathLength;
+            }
+        }
+
+        final var pathBytes = new byte[pathLength];
+        buffer.get(pathBytes);
+
+        final var length = buffer.position() - start;
+        buffer.position(buffer.position() + getPaddingLength(length));
+
+        final var stat = new FileStat(ctimeSeconds, ctimeNanoseconds, mtimeSeconds, mtimeNanoseconds, device, inode, uid, gid, size);
+        final var path = new String(pathBytes, StandardCharsets.UTF_8);
+
+        return new IndexEntry(stat, mode, Git.HEX.formatHex(hashBytes), path);
+    }
+
+    public static CacheTree deserializeCacheTree(ByteBuffer buffer) {
+        final var name = readUntil(buffer, (byte) 0);
+        final var entryCount = Integer.parseInt(readUntil(buffer, (byte) ' '));
+        final var subtreeCount = Integer.parseInt(readUntil(buffer, (byte) '\n'));
+
+        String hash = null;
+        if (entryCount != CacheTree.INVALID) {
+            final var hashBytes = new byte[Git.HASH_BYTES_LENGTH];
+            buffer.get(hashBytes);
+
+            hash = Git.HEX.formatHex(hashBytes);
+        }
+
+        final var children = new ArrayList<CacheTree>(subtreeCount);
+        for (var index = 0; index < subtreeCount; ++index) {
+            children.add(deserializeCacheTree(buffer));
+        }
+
+        return new CacheTree(name, entryCount, hash, Collections.unmodifiableList(children));
+    }
+
+    private static String readUntil(ByteBuffer buffer, byte delimiter) {
+        var length = 0;
+        while (buffer.get(buffer.position() + length) != delimiter) {
+            ++length;
+        }
+
+        final var bytes = new byte[length];
+        buffer.get(bytes);
+        buffer.get();
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void verifyChecksum(ByteBuffer buffer, int checksumStart) throws NoSuchAlgorithmException {
+        final var digest = MessageDigest.getInstance("SHA-1");
+        digest.update(buffer.slice(0, checksumStart));
+
+        final var expected = new byte[Git.HASH_BYTES_LENGTH];
+        buffer.get(checksumStart, expected);
+
+        if (!Arrays.equals(expected, digest.digest())) {
+            throw new IllegalStateException("index checksum mismatch");
+        }
+    }
+
+    private static int getPaddingLength(int length) {
+        return 8 - (length % 8);
+    }
+
+}
@@ -0,0 +1,59 @@
+package git.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import git.domain.tree.TreeEntryMode;
+import git.util.Platform;
+
+public record WorkTreeStat(
+        FileStat stat,
+        int mode
+) {
+
+    public static final String UNIX_ATTRIBUTES = "unix:mode,dev,ino,uid,gid,size,ctime,lastModifiedTime";
+
+    public static final int TYPE_MASK = 0170000;
+    public static final int DIRECTORY_TYPE = 0040000;
+    public static final int REGULAR_FILE_TYPE = 0100000;
+    public static final int OWNER_EXECUTE = 0100;
+
+    public boolean isDirectory() {
+        return (mode & TYPE_MASK) == DIRECTORY_TYPE;
+    }
+
+    public boolean isRegularFile() {
+        return (mode & TYPE_MASK) == REGULAR_FILE_TYPE;
+    }
+
+    public TreeEntryMode getFileMode() {
+        return TreeEntryMode.regularFile((mode & OWNER_EXECUTE) != 0 ? 0755 : 0644);
+    }
+
+    public static WorkTreeStat of(Path path) throws IOException {
+        try {
+            if (Platform.isWindows()) {
+                final var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+                var mode = 0;
+                if (attributes.isDirectory()) {
+                    mode = DIRECTORY_TYPE;
+                } else if (attributes.isRegularFile()) {
+                    mode = REGULAR_FILE_TYPE | 0644;
+                }
+
+                return new WorkTreeStat(FileStat.of(attributes), mode);
+            }
+
+            final var attributes = Files.readAttributes(path, UNIX_ATTRIBUTES);
+            return new WorkTreeStat(FileStat.of(attributes), (Integer) attributes.get("mode"));
+        } catch (NoSuchFileException exception) {
+            /* a dangling symbolic link, or removed while walking */
+            return null;
+        }
+    }
+
+}
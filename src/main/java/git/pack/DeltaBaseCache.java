@@ -0,0 +1,55 @@
+package git.pack;
+
+import java.util.LinkedHashMap;
+
+import git.domain.RawObject;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class DeltaBaseCache {
+
+    public static final long DEFAULT_LIMIT = 96 * 1024 * 1024;
+
+    private final LinkedHashMap<Long, RawObject> objectByOffset = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Getter
+    private final long limit;
+
+    @Getter
+    private long size;
+
+    public DeltaBaseCache() {
+        this(DEFAULT_LIMIT);
+    }
+
+    public synchronized RawObject get(long offset) {
+        return objectByOffset.get(offset);
+    }
+
+    public synchronized void put(long offset, RawObject object) {
+        final var length = object.content().length;
+        if (length > limit) {
+            return;
+        }
+
+        final var previous = objectByOffset.put(offset, object);
+        if (previous != null) {
+            size -= previous.content().length;
+        }
+
+        size += length;
+
+        final var iterator = objectByOffset.values().iterator();
+        while (size > limit) {
+            size -= iterator.next().content().length;
+            iterator.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        objectByOffset.clear();
+        size = 0;
+    }
+
+}
@@ -0,0 +1,101 @@
+package git.pack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+
+import git.domain.ObjectType;
+import git.domain.RawObject;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class PackFile {
+
+    public static final String PACK_EXTENSION = ".pack";
+    public static final String INDEX_EXTENSION = ".idx";
+
+    @Getter
+    private final Path path;
+    private final PackIndex index;
+    private final ByteBuffer buffer;
+    private final DeltaBaseCache deltaBaseCache = new DeltaBaseCache();
+
+    public boolean contains(String hash) {
+        return index.findOffset(hash) != -1;
+    }
+
+    public RawObject read(String hash) throws IOException {
+        final var offset = index.findOffset(hash);
+        if (offset == -1) {
+            return null;
+        }
+
+        try {
+            return new PackParser(buffer.duplicate(), deltaBaseCache).readObject(offset, index::findOffset);
+        } catch (DataFormatException exception) {
+            throw new IOException("corrupted object %s in %s".formatted(hash, path), exception);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    public boolean transferTo(String hash, ObjectType type, WritableByteChannel channel, ByteBuffer output) throws IOException {
+        final var offset = index.findOffset(hash);
+        if (offset == -1) {
+            return false;
+        }
+
+        try {
+            final var parser = new PackParser(buffer.duplicate(), deltaBaseCache);
+            final var header = parser.parseObjectHeader(offset);
+            final var nativeType = header.type().nativeType();
+
+            if (nativeType == null) {
+                final var object = parser.readObject(offset, index::findOffset);
+                checkType(hash, object.type(), type);
+
+                final var content = ByteBuffer.wrap(object.content());
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            } else {
+                checkType(hash, nativeType, type);
+                parser.inflateTo(channel, output);
+            }
+
+            return true;
+        } catch (DataFormatException exception) {
+            throw new IOException("corrupted object %s in %s".formatted(hash, path), exception);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void checkType(String hash, ObjectType actual, ObjectType expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("trying to read %s as %s (%s)".formatted(actual.getName(), expected.getName(), hash));
+        }
+    }
+
+    public static PackFile open(Path indexPath) throws IOException {
+        final var indexFileName = indexPath.getFileName().toString();
+        if (!indexFileName.endsWith(INDEX_EXTENSION)) {
+            throw new IllegalArgumentException("not an index: " + indexPath);
+        }
+
+        final var packFileName = indexFileName.substring(0, indexFileName.length() - INDEX_EXTENSION.length()) + PACK_EXTENSION;
+        final var packPath = indexPath.resolveSibling(packFileName);
+
+        final var index = PackIndex.read(indexPath);
+
+        try (final var channel = FileChannel.open(packPath, StandardOpenOption.READ)) {
+            final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            return new PackFile(packPath, index, buffer);
+        }
+    }
+
+}
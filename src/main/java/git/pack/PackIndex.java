@@ -0,0 +1,194 @@
+package git.pack;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import git.Git;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class PackIndex {
+
+    public static final byte[] SIGNATURE = { (byte) 0xff, 't', 'O', 'c' };
+    public static final int VERSION = 2;
+
+    public static final int FANOUT_SIZE = 256;
+    public static final int LARGE_OFFSET_FLAG = 0x8000_0000;
+
+    private static final int HEADER_LENGTH = SIGNATURE.length + Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int objectCount;
+
+    public int size() {
+        return objectCount;
+    }
+
+    public long findOffset(String hash) {
+        return findOffset(Git.HEX.parseHex(hash));
+    }
+
+    public long findOffset(byte[] hash) {
+        final var first = Byte.toUnsignedInt(hash[0]);
+
+        var low = first == 0 ? 0 : getFanout(first - 1);
+        var high = getFanout(first) - 1;
+
+        while (low <= high) {
+            final var middle = (low + high) >>> 1;
+            final var comparison = compareHash(middle, hash);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return getOffset(middle);
+            }
+        }
+
+        return -1;
+    }
+
+    private int getFanout(int index) {
+        return buffer.getInt(HEADER_LENGTH + index * Integer.BYTES);
+    }
+
+    private int compareHash(int position, byte[] hash) {
+        final var start = getHashesStart() + position * Git.HASH_BYTES_LENGTH;
+
+        for (var index = 0; index < Git.HASH_BYTES_LENGTH; ++index) {
+            final var comparison = Byte.compareUnsigned(buffer.get(start + index), hash[index]);
+
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+
+        return 0;
+    }
+
+    private long getOffset(int position) {
+        final var offset = buffer.getInt(getOffsetsStart() + position * Integer.BYTES);
+
+        if ((offset & LARGE_OFFSET_FLAG) == 0) {
+            return offset;
+        }
+
+        final var largeIndex = offset & ~LARGE_OFFSET_FLAG;
+        return buffer.getLong(getLargeOffsetsStart() + largeIndex * Long.BYTES);
+    }
+
+    private int getHashesStart() {
+        return HEADER_LENGTH + FANOUT_SIZE * Integer.BYTES;
+    }
+
+    private int getOffsetsStart() {
+        return getHashesStart() + objectCount * (Git.HASH_BYTES_LENGTH + Integer.BYTES);
+    }
+
+    private int getLargeOffsetsStart() {
+        return getOffsetsStart() + objectCount * Integer.BYTES;
+    }
+
+    public static PackIndex read(Path path) throws IOException {
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static PackIndex parse(ByteBuffer buffer) {
+        final var signature = new byte[SIGNATURE.length];
+        buffer.get(0, signature);
+
+        if (!Arrays.equals(SIGNATURE, signature)) {
+            throw new IllegalStateException("invalid index signature");
+        }
+
+        final var version = buffer.getInt(SIGNATURE.length);
+        if (version != VERSION) {
+            throw new IllegalStateException("invalid index version: " + version);
+        }
+
+        final var objectCount = buffer.getInt(HEADER_LENGTH + (FANOUT_SIZE - 1) * Integer.BYTES);
+
+        return new PackIndex(buffer, objectCount);
+    }
+
+    public static void write(Collection<Entry> entries, byte[] packChecksum, OutputStream outputStream) throws IOException, NoSuchAlgorithmException {
+        final var sorted = new ArrayList<>(entries);
+        Collections.sort(sorted);
+
+        final var digest = MessageDigest.getInstance("SHA-1");
+        final var dataOutputStream = new DataOutputStream(new DigestOutputStream(outputStream, digest));
+
+        dataOutputStream.write(SIGNATURE);
+        dataOutputStream.writeInt(VERSION);
+
+        final var fanout = new int[FANOUT_SIZE];
+        for (final var entry : sorted) {
+            ++fanout[Integer.parseInt(entry.hash(), 0, 2, 16)];
+        }
+
+        var count = 0;
+        for (final var value : fanout) {
+            count += value;
+            dataOutputStream.writeInt(count);
+        }
+
+        for (final var entry : sorted) {
+            dataOutputStream.write(Git.HEX.parseHex(entry.hash()));
+        }
+
+        for (final var entry : sorted) {
+            dataOutputStream.writeInt(entry.crc32());
+        }
+
+        final var largeOffsets = new ArrayList<Long>();
+        for (final var entry : sorted) {
+            final var offset = entry.offset();
+
+            if (offset <= Integer.MAX_VALUE) {
+                dataOutputStream.writeInt((int) offset);
+            } else {
+                dataOutputStream.writeInt(LARGE_OFFSET_FLAG | largeOffsets.size());
+                largeOffsets.add(offset);
+            }
+        }
+
+        for (final var offset : largeOffsets) {
+            dataOutputStream.writeLong(offset);
+        }
+
+        dataOutputStream.write(packChecksum);
+        dataOutputStream.flush();
+
+        outputStream.write(digest.digest());
+    }
+
+    public static record Entry(
+            String hash,
+            long offset,
+            int crc32
+    ) implements Comparable<Entry> {
+
+        @Override
+        public int compareTo(Entry other) {
+            return hash.compareTo(other.hash);
+        }
+
+    }
+
+}
@@ -0,0 +1,247 @@
+package git.pack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.DataFormatException;
+
+import git.Git;
+import git.domain.RawObject;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+@AllArgsConstructor
+public class PackIndexer {
+
+    private final ByteBuffer buffer;
+    private final int threads;
+
+    public PackIndexer(ByteBuffer buffer) {
+        this(buffer, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Getter
+    private final Map<String, RawObject> externalBases = new LinkedHashMap<>();
+
+    public List<PackIndex.Entry> index() throws IOException, DataFormatException, NoSuchAlgorithmException {
+        return index(null);
+    }
+
+    public List<PackIndex.Entry> index(BaseLoader loader) throws IOException, DataFormatException, NoSuchAlgorithmException {
+        final var digest = MessageDigest.getInstance("SHA-1");
+
+        final var entries = new ConcurrentLinkedQueue<PackIndex.Entry>();
+        final var roots = new ArrayList<PackIndex.Entry>();
+        final var childrenByOffset = new HashMap<Long, List<Pending>>();
+        final var childrenByHash = new HashMap<String, List<Pending>>();
+        final var objectCount = new int[1];
+
+        new PackParser(buffer.duplicate()).parse((object, extent) -> {
+            ++objectCount[0];
+
+            final var offset = extent.offset();
+            final var crc32 = extent.crc32();
+
+            if (object instanceof PackObject.Deltified deltified) {
+                final var pending = new Pending(offset, crc32);
+
+                if (deltified.hasBaseOffset()) {
+                    childrenByOffset.computeIfAbsent(deltified.baseOffset(), (key) -> new ArrayList<>()).add(pending);
+                } else {
+                    childrenByHash.computeIfAbsent(deltified.baseHash(), (key) -> new ArrayList<>()).add(pending);
+                }
+
+                return;
+            }
+
+            final var undeltified = (PackObject.Undeltified) object;
+            final var hash = hash(digest, new RawObject(undeltified.type(), undeltified.content()));
+            final var entry = new PackIndex.Entry(hash, offset, crc32);
+
+            entries.add(entry);
+            roots.add(entry);
+        });
+
+        final var resolver = new Resolver(childrenByOffset, childrenByHash, entries);
+        final var tasks = new ArrayList<Resolver.Task>();
+
+        for (final var root : roots) {
+            if (resolver.hasChildren(root.offset(), root.hash())) {
+                tasks.add(resolver.new Task(root.offset(), root.hash(), null));
+            }
+        }
+
+        final var pool = new ForkJoinPool(threads);
+        try {
+            resolver.run(pool, tasks);
+
+            while (loader != null && entries.size() != objectCount[0]) {
+                final var externalTasks = loadExternalBases(loader, resolver, childrenByHash, entries);
+                if (externalTasks.isEmpty()) {
+                    break;
+                }
+
+                resolver.run(pool, externalTasks);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        if (entries.size() != objectCount[0]) {
+            throw new IllegalStateException("%d delta(s) have no base in pack".formatted(objectCount[0] - entries.size()));
+        }
+
+        return new ArrayList<>(entries);
+    }
+
+    private List<Resolver.Task> loadExternalBases(BaseLoader loader, Resolver resolver, Map<String, List<Pending>> childrenByHash, Collection<PackIndex.Entry> entries) throws IOException {
+        final var resolved = new HashSet<String>();
+        for (final var entry : entries) {
+            resolved.add(entry.hash());
+        }
+
+        final var tasks = new ArrayList<Resolver.Task>();
+
+        for (final var baseHash : childrenByHash.keySet()) {
+            if (resolved.contains(baseHash) || externalBases.containsKey(baseHash)) {
+                continue;
+            }
+
+            final var base = loader.load(baseHash);
+            if (base != null) {
+                externalBases.put(baseHash, base);
+                tasks.add(resolver.new Task(PackObject.Deltified.NO_OFFSET, baseHash, base));
+            }
+        }
+
+        return tasks;
+    }
+
+    private static String hash(MessageDigest digest, RawObject object) throws IOException {
+        return Git.HEX.formatHex(digest.digest(object.serialize()));
+    }
+
+    @AllArgsConstructor
+    private class Resolver {
+
+        private final Map<Long, List<Pending>> childrenByOffset;
+        private final Map<String, List<Pending>> childrenByHash;
+        private final ConcurrentLinkedQueue<PackIndex.Entry> entries;
+
+        public boolean hasChildren(long offset, String hash) {
+            return childrenByOffset.containsKey(offset) || childrenByHash.containsKey(hash);
+        }
+
+        public List<Pending> getChildren(long offset, String hash) {
+            final var byOffset = childrenByOffset.getOrDefault(offset, Collections.emptyList());
+            final var byHash = childrenByHash.getOrDefault(hash, Collections.emptyList());
+
+            if (byHash.isEmpty()) {
+                return byOffset;
+            }
+
+            final var children = new ArrayList<Pending>(byOffset.size() + byHash.size());
+            children.addAll(byOffset);
+            children.addAll(byHash);
+
+            return children;
+        }
+
+        public void run(ForkJoinPool pool, List<Task> tasks) {
+            pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+        }
+
+        @SuppressWarnings("serial")
+        @AllArgsConstructor
+        private class Task extends RecursiveAction {
+
+            private final long offset;
+            private final String hash;
+            private RawObject object;
+
+            @Override
+            @SneakyThrows
+            protected void compute() {
+                final var digest = MessageDigest.getInstance("SHA-1");
+                final var parser = new PackParser(buffer.duplicate());
+
+                var base = object;
+                var baseOffset = offset;
+                var baseHash = hash;
+                object = null;
+
+                if (base == null) {
+                    final var undeltified = (PackObject.Undeltified) parser.parseObject(baseOffset);
+                    base = new RawObject(undeltified.type(), undeltified.content());
+                }
+
+                final var forked = new ArrayList<Task>();
+
+                while (base != null) {
+                    RawObject next = null;
+                    var nextOffset = PackObject.Deltified.NO_OFFSET;
+                    String nextHash = null;
+
+                    for (final var child : getChildren(baseOffset, baseHash)) {
+                        final var delta = (PackObject.Deltified) parser.parseObject(child.offset());
+                        final var childObject = new RawObject(base.type(), delta.apply(base.content()));
+                        final var childHash = hash(digest, childObject);
+
+                        entries.add(new PackIndex.Entry(childHash, child.offset(), child.crc32()));
+
+                        if (!hasChildren(child.offset(), childHash)) {
+                            continue;
+                        }
+
+                        if (next != null) {
+                            final var task = new Task(nextOffset, nextHash, next);
+                            task.fork();
+                            forked.add(task);
+                        }
+
+                        next = childObject;
+                        nextOffset = child.offset();
+                        nextHash = childHash;
+                    }
+
+                    base = next;
+                    baseOffset = nextOffset;
+                    baseHash = nextHash;
+                }
+
+                for (final var task : forked) {
+                    task.join();
+                }
+            }
+
+        }
+
+    }
+
+    private static record Pending(
+            long offset,
+            int crc32
+    ) {}
+
+    @FunctionalInterface
+    public interface BaseLoader {
+
+        RawObject load(String hash) throws IOException;
+
+    }
+
+}
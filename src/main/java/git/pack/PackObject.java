@@ -1,5 +1,6 @@
 package git.pack;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import git.domain.ObjectType;
@@ -16,16 +17,50 @@ public sealed interface PackObject permits Undeltified, Deltified {
 
     public record Deltified(
             String baseHash,
+            long baseOffset,
             int size,
             List<DeltaInstruction> instructions
-    ) implements PackObject {}
+    ) implements PackObject {
+
+        public static final long NO_OFFSET = -1;
+
+        public boolean hasBaseOffset() {
+            return baseOffset != NO_OFFSET;
+        }
+
+        public byte[] apply(byte[] base) {
+            final var content = new byte[size];
+            final var buffer = ByteBuffer.wrap(content);
+
+            for (final var instruction : instructions) {
+                if (instruction instanceof DeltaInstruction.Copy copy) {
+                    buffer.put(base, copy.offset(), copy.size());
+                } else if (instruction instanceof DeltaInstruction.Insert insert) {
+                    buffer.put(insert.data());
+                } else {
+                    throw new UnsupportedOperationException("unknown instruction: " + instruction);
+                }
+            }
+
+            if (buffer.hasRemaining()) {
+                throw new IllegalStateException("buffer is not full");
+            }
+
+            return content;
+        }
+
+    }
 
     public static Undeltified undeltified(ObjectType type, byte[] content) {
         return new Undeltified(type, content);
     }
 
     public static Deltified deltified(String bashHash, int size, List<DeltaInstruction> instructions) {
-        return new Deltified(bashHash, size, instructions);
+        return new Deltified(bashHash, Deltified.NO_OFFSET, size, instructions);
+    }
+
+    public static Deltified deltified(long baseOffset, int size, List<DeltaInstruction> instructions) {
+        return new Deltified(null, baseOffset, size, instructions);
     }
 
 }
\ No newline at end of file
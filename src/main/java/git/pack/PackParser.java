@@ -2,13 +2,20 @@ package git.pack;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.zip.DataFormatException;
+import java.util.zip.CRC32;
 import java.util.zip.Inflater;
 
 import git.Git;
+import git.domain.RawObject;
+import git.util.ZlibPool;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 
@@ -20,65 +27,193 @@ public class PackParser {
     public static final int SIZE_7_MASK = 0b0111_1111;
     public static final int SIZE_CONTINUE_MASK = 0b1000_0000;
 
+    private static final byte[] EMPTY = {};
+
     private final ByteBuffer buffer;
+    private final DeltaBaseCache deltaBaseCache;
+
+    private final CRC32 crc32 = new CRC32();
+    private final byte[] probe = new byte[1];
+
+    private Inflater inflater;
+    private byte[] scratch = EMPTY;
+    private int lastDataOffset;
+
+    public PackParser(ByteBuffer buffer) {
+        this(buffer, new DeltaBaseCache());
+    }
+
+    public List<PackObject> parse() throws IOException, DataFormatException, NoSuchAlgorithmException {
+        final var objects = new ArrayList<PackObject>();
+        parse((object, extent) -> objects.add(object));
+
+        return objects;
+    }
 
     @SneakyThrows
-    public List<PackObject> parse() throws IOException, DataFormatException {
+    public void parse(Consumer consumer) throws IOException, DataFormatException, NoSuchAlgorithmException {
+        final var digest = MessageDigest.getInstance("SHA-1");
+        final var checksumStart = buffer.limit() - Git.HASH_BYTES_LENGTH;
+
         parseSignature();
         parseVersion();
 
         final var objectCount = buffer.getInt();
-        final var objects = new ArrayList<PackObject>(objectCount);
-        final var objectByOffset = new HashMap<Integer, Object>(objectCount);
+        digest.update(buffer.slice(0, buffer.position()));
 
-        for (var index = 0; index < objectCount; ++index) {
-            final var header = parseObjectHeader();
-            final var type = header.type();
-            final var bufferPosition = buffer.position();
+        inflater = ZlibPool.SHARED.acquireInflater();
+        try {
+            for (var index = 0; index < objectCount; ++index) {
+                final var offset = buffer.position();
+                final var object = parseObject();
+                final var end = buffer.position();
 
-            final PackObject object = switch (type) {
-                case COMMIT:
-                case TREE:
-                case BLOB: {
-                    final var content = inflate(header.size());
-
-                    yield PackObject.undeltified(type.nativeType(), content);
+                if (end > checksumStart) {
+                    throw new DataFormatException("object at offset %d overlaps the pack checksum".formatted(offset));
                 }
 
-                case TAG: {
-                    throw new UnsupportedOperationException();
-                }
+                final var slice = buffer.slice(offset, end - offset);
+                digest.update(slice.duplicate());
 
-                case OFS_DELTA: {
-                    throw new UnsupportedOperationException();
-                }
+                consumer.accept(object, new Extent(offset, lastDataOffset, end, checksum(slice)));
+            }
+        } finally {
+            ZlibPool.SHARED.release(inflater);
+            inflater = null;
+        }
+
+        if (buffer.position() != checksumStart) {
+            throw new IllegalStateException("%d unexpected byte(s) after the last object".formatted(checksumStart - buffer.position()));
+        }
+
+        if (!Arrays.equals(digest.digest(), readChecksum())) {
+            throw new IllegalStateException("pack checksum mismatch");
+        }
+    }
+
+    public PackObject parseObject(long offset) throws DataFormatException {
+        buffer.position(Math.toIntExact(offset));
+
+        return parseObject();
+    }
+
+    public PackObject parseObject() throws DataFormatException {
+        final var offset = buffer.position();
+        final var header = parseObjectHeader();
+        final var type = header.type();
+
+        return switch (type) {
+            case COMMIT:
+            case TREE:
+            case BLOB:
+            case TAG: {
+                final var content = inflate(header.size());
+
+                yield PackObject.undeltified(type.nativeType(), content);
+            }
+
+            case OFS_DELTA: {
+                final var baseOffset = offset - parseOffsetEncodedInteger(buffer);
+                final var contentBuffer = inflateDelta(header.size());
+
+                @SuppressWarnings("unused")
+                final var baseObjectSize = parseVariableLengthIntegerLittleEndian(contentBuffer);
+                final var newObjectSize = parseVariableLengthIntegerLittleEndian(contentBuffer);
+
+                final var instructions = parseDeltaInstructions(contentBuffer);
+
+                yield PackObject.deltified(baseOffset, newObjectSize, instructions);
+            }
 
-                case REF_DELTA: {
-                    final var hashBytes = new byte[Git.HASH_BYTES_LENGTH];
-                    buffer.get(hashBytes);
+            case REF_DELTA: {
+                final var hashBytes = new byte[Git.HASH_BYTES_LENGTH];
+                buffer.get(hashBytes);
 
-                    final var baseHash = Git.HEX.formatHex(hashBytes);
+                final var baseHash = Git.HEX.formatHex(hashBytes);
+                final var contentBuffer = inflateDelta(header.size());
 
-                    final var content = inflate(header.size());
-                    final var contentBuffer = ByteBuffer.wrap(content);
+                @SuppressWarnings("unused")
+                final var baseObjectSize = parseVariableLengthIntegerLittleEndian(contentBuffer);
+                final var newObjectSize = parseVariableLengthIntegerLittleEndian(contentBuffer);
 
-                    @SuppressWarnings("unused")
-                    final var baseObjectSize = parseVariableLengthIntegerLittleEndian(contentBuffer);
-                    final var newObjectSize = parseVariableLengthIntegerLittleEndian(contentBuffer);
+                final var instructions = parseDeltaInstructions(contentBuffer);
 
-                    final var instructions = parseDeltaInstructions(contentBuffer);
+                yield PackObject.deltified(baseHash, newObjectSize, instructions);
+            }
+        };
+    }
+
+    public RawObject readObject(long offset, BaseResolver resolver) throws DataFormatException {
+        final var chain = new ArrayDeque<Link>();
+
+        var current = offset;
+        RawObject base;
+
+        while (true) {
+            if (current != offset && (base = deltaBaseCache.get(current)) != null) {
+                break;
+            }
 
-                    yield PackObject.deltified(baseHash, newObjectSize, instructions);
+            final var object = parseObject(current);
+            if (object instanceof PackObject.Undeltified undeltified) {
+                base = new RawObject(undeltified.type(), undeltified.content());
+
+                if (current != offset) {
+                    deltaBaseCache.put(current, base);
                 }
-            };
 
-            if (object != null) {
-                objects.add(object);
-                objectByOffset.put(bufferPosition, buffer);
+                break;
             }
+
+            final var deltified = (PackObject.Deltified) object;
+            chain.push(new Link(current, deltified));
+
+            current = getBaseOffset(deltified, resolver);
         }
 
-        return objects;
+        while (!chain.isEmpty()) {
+            final var link = chain.pop();
+            base = new RawObject(base.type(), link.deltified().apply(base.content()));
+
+            if (link.offset() != offset) {
+                deltaBaseCache.put(link.offset(), base);
+            }
+        }
+
+        return base;
+    }
+
+    public static long getBaseOffset(PackObject.Deltified deltified, BaseResolver resolver) {
+        if (deltified.hasBaseOffset()) {
+            return deltified.baseOffset();
+        }
+
+        final var baseHash = deltified.baseHash();
+
+        final var baseOffset = resolver.findOffset(baseHash);
+        if (baseOffset == -1) {
+            throw new IllegalStateException("missing delta base: " + baseHash);
+        }
+
+        return baseOffset;
+    }
+
+    public byte[] readChecksum() {
+        final var bytes = new byte[Git.HASH_BYTES_LENGTH];
+        buffer.get(buffer.limit() - bytes.length, bytes);
+
+        return bytes;
+    }
+
+    public int checksum(int start, int end) {
+        return checksum(buffer.slice(start, end - start));
+    }
+
+    private int checksum(ByteBuffer slice) {
+        crc32.reset();
+        crc32.update(slice);
+
+        return (int) crc32.getValue();
     }
 
     public void parseSignature() {
@@ -99,6 +234,12 @@ public class PackParser {
         }
     }
 
+    public PackObjectHeader parseObjectHeader(long offset) {
+        buffer.position(Math.toIntExact(offset));
+
+        return parseObjectHeader();
+    }
+
     public PackObjectHeader parseObjectHeader() {
         var read = Byte.toUnsignedInt(buffer.get());
 
@@ -114,15 +255,101 @@ public class PackParser {
     }
 
     public byte[] inflate(int size) throws DataFormatException {
-        final var inflater = new Inflater();
-        inflater.setInput(buffer);
-
         final var inflated = new byte[size];
-        inflater.inflate(inflated);
+        inflate(inflated, size);
 
         return inflated;
     }
 
+    private ByteBuffer inflateDelta(int size) throws DataFormatException {
+        if (scratch.length < size) {
+            scratch = new byte[Math.max(size, scratch.length * 2)];
+        }
+
+        inflate(scratch, size);
+
+        return ByteBuffer.wrap(scratch, 0, size);
+    }
+
+    private void inflate(byte[] target, int size) throws DataFormatException {
+        final var shared = inflater;
+        final var current = shared != null ? shared : ZlibPool.SHARED.acquireInflater();
+
+        try {
+            final var start = buffer.position();
+            lastDataOffset = start;
+
+            current.setInput(buffer.slice(start, buffer.limit() - start));
+
+            var inflated = 0;
+            while (!current.finished()) {
+                final var count = inflated < size
+                        ? current.inflate(target, inflated, size - inflated)
+                        : current.inflate(probe);
+
+                if (inflated == size && count != 0) {
+                    throw new DataFormatException("object at offset %d inflates to more than %d byte(s)".formatted(start, size));
+                }
+
+                inflated += count;
+
+                if (count == 0 && !current.finished()) {
+                    if (current.needsDictionary()) {
+                        throw new DataFormatException("preset dictionaries are not supported");
+                    }
+
+                    if (current.needsInput()) {
+                        throw new DataFormatException("truncated zlib stream at offset %d".formatted(start));
+                    }
+                }
+            }
+
+            if (inflated != size) {
+                throw new DataFormatException("object at offset %d inflated to %d byte(s) instead of %d".formatted(start, inflated, size));
+            }
+
+            buffer.position(Math.toIntExact(start + current.getBytesRead()));
+        } finally {
+            if (shared != null) {
+                shared.reset();
+            } else {
+                ZlibPool.SHARED.release(current);
+            }
+        }
+    }
+
+    public void inflateTo(WritableByteChannel channel, ByteBuffer output) throws IOException, DataFormatException {
+        final var inflater = ZlibPool.SHARED.acquireInflater();
+
+        try {
+            inflater.setInput(buffer);
+            inflateTo(inflater, channel, output);
+        } finally {
+            ZlibPool.SHARED.release(inflater);
+        }
+    }
+
+    public static long inflateTo(Inflater inflater, WritableByteChannel channel, ByteBuffer output) throws IOException, DataFormatException {
+        var written = 0L;
+
+        while (!inflater.finished()) {
+            output.clear();
+
+            if (inflater.inflate(output) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("truncated zlib stream");
+            }
+
+            output.flip();
+            written += output.remaining();
+
+            while (output.hasRemaining()) {
+                channel.write(output);
+            }
+        }
+
+        return written;
+    }
+
     public List<DeltaInstruction> parseDeltaInstructions(ByteBuffer buffer) {
         final var instructions = new ArrayList<DeltaInstruction>();
 
@@ -180,6 +407,18 @@ public class PackParser {
         return value;
     }
 
+    public static long parseOffsetEncodedInteger(ByteBuffer buffer) {
+        var read = Byte.toUnsignedInt(buffer.get());
+        long value = read & SIZE_7_MASK;
+
+        while ((read & SIZE_CONTINUE_MASK) != 0) {
+            read = Byte.toUnsignedInt(buffer.get());
+            value = ((value + 1) << 7) | (read & SIZE_7_MASK);
+        }
+
+        return value;
+    }
+
     public static int parseVariableLengthIntegerLittleEndian(ByteBuffer buffer) {
         var value = 0;
         var shift = 0;
@@ -198,4 +437,40 @@ public class PackParser {
         return value;
     }
 
+    @FunctionalInterface
+    public interface Consumer {
+
+        void accept(PackObject object, Extent extent) throws IOException, NoSuchAlgorithmException;
+
+    }
+
+    public static record Extent(
+            long offset,
+            long dataOffset,
+            long end,
+            int crc32
+    ) {
+
+        public long length() {
+            return end - offset;
+        }
+
+        public long compressedLength() {
+            return end - dataOffset;
+        }
+
+    }
+
+    private static record Link(
+            long offset,
+            PackObject.Deltified deltified
+    ) {}
+
+    @FunctionalInterface
+    public interface BaseResolver {
+
+        long findOffset(String hash);
+
+    }
+
 }
\ No newline at end of file
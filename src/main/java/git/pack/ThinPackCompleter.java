@@ -0,0 +1,116 @@
+package git.pack;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import git.Git;
+import git.domain.RawObject;
+import git.util.ZlibPool;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class ThinPackCompleter {
+
+    public static final int OBJECT_COUNT_OFFSET = 8;
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final int compressionLevel;
+
+    public byte[] complete(Map<String, RawObject> bases, Collection<PackIndex.Entry> entries) throws IOException, NoSuchAlgorithmException {
+        var position = channel.size() - Git.HASH_BYTES_LENGTH;
+
+        final var crc32 = new CRC32();
+        final var deflater = ZlibPool.SHARED.acquireDeflater(compressionLevel);
+        try {
+            for (final var entry : bases.entrySet()) {
+                final var bytes = encode(entry.getValue(), deflater);
+                deflater.reset();
+
+                crc32.reset();
+                crc32.update(bytes);
+
+                write(ByteBuffer.wrap(bytes), position);
+                entries.add(new PackIndex.Entry(entry.getKey(), position, (int) crc32.getValue()));
+
+                position += bytes.length;
+            }
+        } finally {
+            ZlibPool.SHARED.release(deflater);
+        }
+
+        final var count = ByteBuffer.allocate(Integer.BYTES);
+        channel.read(count, OBJECT_COUNT_OFFSET);
+        count.flip();
+
+        final var objectCount = count.getInt() + bases.size();
+        write(ByteBuffer.allocate(Integer.BYTES).putInt(0, objectCount), OBJECT_COUNT_OFFSET);
+
+        final var checksum = digest(position);
+        write(ByteBuffer.wrap(checksum), position);
+
+        return checksum;
+    }
+
+    private static byte[] encode(RawObject object, Deflater deflater) throws IOException {
+        final var content = object.content();
+        final var type = PackObjectType.valueOf(object.type());
+
+        final var outputStream = new ByteArrayOutputStream(content.length / 2 + 16);
+
+        var size = (long) content.length;
+        var header = (type.value() << 4) | (int) (size & PackParser.SIZE_4_MASK);
+        size >>>= 4;
+
+        while (size != 0) {
+            outputStream.write(header | PackParser.SIZE_CONTINUE_MASK);
+            header = (int) (size & PackParser.SIZE_7_MASK);
+            size >>>= 7;
+        }
+
+        outputStream.write(header);
+
+        try (final var deflaterOutputStream = new DeflaterOutputStream(outputStream, deflater)) {
+            deflaterOutputStream.write(content);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    private byte[] digest(long end) throws IOException, NoSuchAlgorithmException {
+        final var digest = MessageDigest.getInstance("SHA-1");
+        final var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        var position = 0L;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(BUFFER_SIZE, end - position));
+
+            final var read = channel.read(buffer, position);
+            if (read == -1) {
+                throw new IllegalStateException("pack ended before its checksum");
+            }
+
+            buffer.flip();
+            digest.update(buffer);
+            position += read;
+        }
+
+        return digest.digest();
+    }
+
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package git.protocol;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public record Capabilities(
+        int version,
+        Map<String, String> values
+) {
+
+    public static final int VERSION_0 = 0;
+    public static final int VERSION_2 = 2;
+
+    public boolean isVersion2() {
+        return version == VERSION_2;
+    }
+
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    public String get(String name) {
+        return values.get(name);
+    }
+
+    public boolean hasFeature(String name, String feature) {
+        final var value = values.get(name);
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+
+        return List.of(value.split(" ")).contains(feature);
+    }
+
+    public static Capabilities parseVersion0(String line) {
+        return parse(VERSION_0, List.of(line.split(" ")));
+    }
+
+    public static Capabilities parseVersion2(Collection<String> lines) {
+        return parse(VERSION_2, lines);
+    }
+
+    private static Capabilities parse(int version, Collection<String> capabilities) {
+        final var values = new LinkedHashMap<String, String>();
+
+        for (final var capability : capabilities) {
+            if (capability.isEmpty()) {
+                continue;
+            }
+
+            final var equals = capability.indexOf('=');
+            if (equals == -1) {
+                values.put(capability, "");
+            } else {
+                values.put(capability.substring(0, equals), capability.substring(equals + 1));
+            }
+        }
+
+        return new Capabilities(version, Collections.unmodifiableMap(values));
+    }
+
+}
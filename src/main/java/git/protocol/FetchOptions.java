@@ -0,0 +1,46 @@
+package git.protocol;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public record FetchOptions(
+        int depth,
+        String filter,
+        Collection<String> shallow
+) {
+
+    public static final FetchOptions DEFAULT = new FetchOptions(0, null, List.of());
+
+    public static final String BLOB_NONE_FILTER = "blob:none";
+    public static final String BLOB_LIMIT_FILTER_PREFIX = "blob:limit=";
+
+    private static final Pattern SIZE_PATTERN = Pattern.compile("\\d+[kmgKMG]?");
+
+    public FetchOptions {
+        if (depth < 0) {
+            throw new IllegalArgumentException("depth must be positive: " + depth);
+        }
+
+        if (filter != null) {
+            checkFilter(filter);
+        }
+    }
+
+    public boolean isShallow() {
+        return depth != 0 || !shallow.isEmpty();
+    }
+
+    public static void checkFilter(String filter) {
+        if (filter.equals(BLOB_NONE_FILTER)) {
+            return;
+        }
+
+        if (filter.startsWith(BLOB_LIMIT_FILTER_PREFIX) && SIZE_PATTERN.matcher(filter.substring(BLOB_LIMIT_FILTER_PREFIX.length())).matches()) {
+            return;
+        }
+
+        throw new IllegalArgumentException("unsupported filter: " + filter);
+    }
+
+}
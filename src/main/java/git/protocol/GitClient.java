@@ -1,14 +1,21 @@
 package git.protocol;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import git.Git;
+import git.domain.ObjectId;
 import git.domain.Reference;
 import lombok.RequiredArgsConstructor;
 import okhttp3.HttpUrl;
@@ -23,102 +30,565 @@ public class GitClient {
 
     public static final MediaType X_GIT_UPLOAD_PACK_REQUEST = MediaType.parse("application/x-git-upload-pack-request");
 
+    public static final String PROTOCOL_HEADER = "Git-Protocol";
+    public static final String PROTOCOL_VERSION_2 = "version=2";
+    public static final String AGENT = "java-git/1.0";
+    public static final String OBJECT_FORMAT = "sha1";
+    public static final String SIDEBAND_64K = "side-band-64k";
+    public static final String OFS_DELTA = "ofs-delta";
+    public static final String THIN_PACK = "thin-pack";
+    public static final String MULTI_ACK_DETAILED = "multi_ack_detailed";
+    public static final String SHALLOW = "shallow";
+    public static final String FILTER = "filter";
+
+    public static final int INITIAL_HAVES = 16;
+    public static final int MAX_HAVES_PER_ROUND = 1024;
+    public static final int MAX_IN_VAIN = 256;
+
+    public static final String SYMBOLIC_TARGET_ATTRIBUTE = "symref-target:";
+    public static final String PEELED_ATTRIBUTE = "peeled:";
+    public static final String PEELED_SUFFIX = "^{}";
+
     private final OkHttpClient httpClient = new OkHttpClient();
     private final URI baseUri;
 
+    private Advertisement advertisement;
+
+    public Capabilities getCapabilities() throws IOException {
+        return getAdvertisement().capabilities();
+    }
+
     public List<Reference> fetchReferences() throws IOException {
+        return listReferences(Collections.emptyList());
+    }
+
+    public List<Reference> listReferences(Collection<String> prefixes) throws IOException {
+        final var advertisement = getAdvertisement();
+
+        if (!advertisement.capabilities().isVersion2()) {
+            if (prefixes.isEmpty()) {
+                return advertisement.references();
+            }
+
+            return advertisement.references()
+                    .stream()
+                    .filter((reference) -> prefixes.stream().anyMatch(reference.name()::startsWith))
+                    .toList();
+        }
+
+        final var arguments = new ArrayList<PacketLine>();
+        arguments.add(PacketLine.data("symrefs\n"));
+        arguments.add(PacketLine.data("peel\n"));
+
+        for (final var prefix : prefixes) {
+            arguments.add(PacketLine.data("ref-prefix %s\n".formatted(prefix)));
+        }
+
         final var references = new ArrayList<Reference>();
 
-        final var request = new Request.Builder()
-                .url(
-                        HttpUrl.get(baseUri)
-                                .newBuilder()
-                                .addPathSegment("info")
-                                .addPathSegment("refs")
-                                .addQueryParameter("service", "git-upload-pack")
-                                .build()
-                )
-                .get()
-                .build();
+        try (
+                final var response = command("ls-refs", arguments);
+                final var inputStream = response.body().byteStream()
+        ) {
+            PacketLine line;
+            while ((line = parsePacketLine(inputStream)) instanceof PacketLine.Data data) {
+                references.add(parseListedReference(data.text()));
+            }
+
+            if (line != PacketLine.flush()) {
+                throw new IllegalStateException("ls-refs response must end with a flush: " + line);
+            }
+        }
+
+        return references;
+    }
+
+    public ShallowUpdate getPack(Collection<String> wants, OutputStream packOutputStream) throws IOException {
+        return getPack(wants, null, FetchOptions.DEFAULT, packOutputStream);
+    }
+
+    public ShallowUpdate getPack(Collection<String> wants, Negotiator negotiator, FetchOptions options, OutputStream packOutputStream) throws IOException {
+        if (wants.isEmpty()) {
+            throw new IllegalArgumentException("nothing to fetch");
+        }
+
+        final var capabilities = getCapabilities();
+        final var version2 = capabilities.isVersion2();
+        checkSupported(capabilities, options);
+
+        final var update = ShallowUpdate.create();
+        final var common = new LinkedHashSet<String>();
+
+        if (negotiator != null && (version2 || capabilities.has(MULTI_ACK_DETAILED))) {
+            var batchSize = INITIAL_HAVES;
+            var inVain = 0;
+
+            while (inVain < MAX_IN_VAIN) {
+                final var haves = negotiator.next(batchSize);
+                if (haves.isEmpty()) {
+                    break;
+                }
+
+                final var sent = new ArrayList<String>(common);
+                for (final var have : haves) {
+                    sent.add(have.name());
+                }
+
+                final var known = common.size();
+                final var round = version2
+                        ? negotiateVersion2(wants, sent, negotiator, common, options, update, packOutputStream)
+                        : negotiateVersion0(wants, sent, negotiator, common, options);
+
+                if (round == Round.PACK_RECEIVED) {
+                    return update;
+                }
+
+                if (round == Round.READY) {
+                    break;
+                }
+
+                inVain = common.size() == known ? inVain + haves.size() : 0;
+                batchSize = Math.min(batchSize * 2, MAX_HAVES_PER_ROUND);
+            }
+        }
+
+        if (version2) {
+            fetch(wants, common, options, update, packOutputStream);
+        } else {
+            uploadPack(wants, common, options, update, packOutputStream);
+        }
+
+        return update;
+    }
+
+    private static void checkSupported(Capabilities capabilities, FetchOptions options) {
+        if (options.isShallow() && !supports(capabilities, SHALLOW)) {
+            throw new IllegalStateException("server does not support shallow fetches");
+        }
+
+        if (options.filter() != null && !supports(capabilities, FILTER)) {
+            throw new IllegalStateException("server does not support filtering");
+        }
+    }
+
+    private static boolean supports(Capabilities capabilities, String feature) {
+        if (capabilities.isVersion2()) {
+            return capabilities.hasFeature("fetch", feature);
+        }
+
+        return capabilities.has(feature);
+    }
 
+    private Round negotiateVersion2(Collection<String> wants, Collection<String> haves, Negotiator negotiator, Set<String> common, FetchOptions options, ShallowUpdate update, OutputStream packOutputStream) throws IOException {
         try (
-                final var response = httpClient.newCall(request).execute();
-                final var responseBody = response.body();
-                final var inputStream = responseBody.byteStream();
+                final var response = command("fetch", getFetchArguments(wants, haves, options, false));
+                final var inputStream = response.body().byteStream()
         ) {
-            if (!response.isSuccessful()) {
-                throw new IllegalStateException("response is not successful: " + response.code());
+            final var header = parsePacketLine(inputStream);
+            if (!(header instanceof PacketLine.Data headerData) || !headerData.text().equals("acknowledgments")) {
+                throw new IllegalStateException("expected acknowledgments section, got: " + header);
             }
 
-            final var lines = parsePacketLines(inputStream);
+            var ready = false;
+
+            PacketLine line;
+            while ((line = parsePacketLine(inputStream)) instanceof PacketLine.Data data) {
+                final var text = data.text();
 
-            for (final var line : lines) {
-                if (!(line instanceof PacketLine.Data data) || data.isComment()) {
-                    continue;
+                if (text.startsWith("ACK ")) {
+                    acknowledge(text.substring(4), negotiator, common);
+                } else if (text.equals("ready")) {
+                    ready = true;
+                } else if (!text.equals("NAK")) {
+                    throw new IllegalStateException("unexpected acknowledgment: " + text);
                 }
+            }
+
+            if (!ready) {
+                return Round.CONTINUE;
+            }
+
+            if (line != PacketLine.delimiter()) {
+                throw new IllegalStateException("server is ready but sent no packfile: " + line);
+            }
+
+            readToPackfile(inputStream, update);
+            readPackfile(inputStream, packOutputStream);
+            return Round.PACK_RECEIVED;
+        }
+    }
+
+    private Round negotiateVersion0(Collection<String> wants, Collection<String> haves, Negotiator negotiator, Set<String> common, FetchOptions options) throws IOException {
+        try (
+                final var response = post(getUploadPackLines(wants, haves, options, false), false);
+                final var inputStream = response.body().byteStream()
+        ) {
+            if (options.depth() != 0) {
+                readShallowInfo(inputStream, ShallowUpdate.create());
+            }
 
-                final var bytes = data.content();
+            var ready = false;
 
-                final var hash = new String(bytes, 0, Git.HASH_STRING_LENGTH);
+            while (true) {
+                final var line = parsePacketLine(inputStream);
+                if (!(line instanceof PacketLine.Data data)) {
+                    throw new IllegalStateException("negotiation response must end with NAK: " + line);
+                }
 
-                var startIndex = Git.HASH_STRING_LENGTH + 1;
-                var endIndex = startIndex + 1;
-                while (endIndex != bytes.length && (bytes[endIndex] != '\0' && bytes[endIndex] != '\n')) {
-                    ++endIndex;
+                final var text = data.text();
+                if (text.equals("NAK")) {
+                    break;
                 }
 
-                final var name = new String(bytes, startIndex, endIndex - startIndex);
+                final var parts = text.split(" ");
+                if (parts.length != 3 || !parts[0].equals("ACK")) {
+                    throw new IllegalStateException("unexpected acknowledgment: " + text);
+                }
 
-                references.add(new Reference(name, hash));
+                acknowledge(parts[1], negotiator, common);
+                ready |= parts[2].equals("ready");
             }
+
+            return ready ? Round.READY : Round.CONTINUE;
         }
+    }
 
-        return references;
+    private static void acknowledge(String hash, Negotiator negotiator, Set<String> common) throws IOException {
+        if (common.add(hash)) {
+            negotiator.acknowledge(ObjectId.fromString(hash));
+        }
+    }
+
+    private void fetch(Collection<String> wants, Collection<String> haves, FetchOptions options, ShallowUpdate update, OutputStream packOutputStream) throws IOException {
+        try (
+                final var response = command("fetch", getFetchArguments(wants, haves, options, true));
+                final var inputStream = response.body().byteStream()
+        ) {
+            readToPackfile(inputStream, update);
+            readPackfile(inputStream, packOutputStream);
+        }
     }
 
-    public byte[] getPack(Reference reference) throws IOException {
-        final var requestLines = List.of(
-                PacketLine.data("want %s\n".formatted(reference.hash())),
-                PacketLine.flush(),
-                PacketLine.data("done\n")
-        );
+    private List<PacketLine> getFetchArguments(Collection<String> wants, Collection<String> haves, FetchOptions options, boolean done) {
+        final var arguments = new ArrayList<PacketLine>();
+
+        for (final var want : wants) {
+            arguments.add(PacketLine.data("want %s\n".formatted(want)));
+        }
 
+        for (final var have : haves) {
+            arguments.add(PacketLine.data("have %s\n".formatted(have)));
+        }
+
+        for (final var shallow : options.shallow()) {
+            arguments.add(PacketLine.data("shallow %s\n".formatted(shallow)));
+        }
+
+        if (options.depth() != 0) {
+            arguments.add(PacketLine.data("deepen %d\n".formatted(options.depth())));
+        }
+
+        if (options.filter() != null) {
+            arguments.add(PacketLine.data("filter %s\n".formatted(options.filter())));
+        }
+
+        if (isThinPackWanted(haves, options)) {
+            arguments.add(PacketLine.data(THIN_PACK + "\n"));
+        }
+
+        arguments.add(PacketLine.data(OFS_DELTA + "\n"));
+
+        if (done) {
+            arguments.add(PacketLine.data("done\n"));
+        }
+
+        return arguments;
+    }
+
+    private static boolean isThinPackWanted(Collection<String> haves, FetchOptions options) {
+        return !haves.isEmpty() && options.filter() == null;
+    }
+
+    private void readPackfile(InputStream inputStream, OutputStream packOutputStream) throws IOException {
+        new SidebandInputStream(inputStream, System.err).transferTo(packOutputStream);
+    }
+
+    private void uploadPack(Collection<String> wants, Collection<String> haves, FetchOptions options, ShallowUpdate update, OutputStream packOutputStream) throws IOException {
+        try (
+                final var response = post(getUploadPackLines(wants, haves, options, true), false);
+                final var inputStream = response.body().byteStream()
+        ) {
+            if (options.depth() != 0) {
+                readShallowInfo(inputStream, update);
+            }
+
+            while (true) {
+                final var line = parsePacketLine(inputStream);
+                if (!(line instanceof PacketLine.Data data)) {
+                    throw new IllegalStateException("expected NAK or ACK before the pack: " + line);
+                }
+
+                final var text = data.text();
+                if (text.equals("NAK") || (text.startsWith("ACK ") && text.indexOf(' ', 4) == -1)) {
+                    break;
+                }
+
+                if (!text.startsWith("ACK ")) {
+                    throw new IllegalStateException("unexpected acknowledgment: " + text);
+                }
+            }
+
+            if (getCapabilities().has(SIDEBAND_64K)) {
+                readPackfile(inputStream, packOutputStream);
+            } else {
+                inputStream.transferTo(packOutputStream);
+            }
+        }
+    }
+
+    private List<PacketLine> getUploadPackLines(Collection<String> wants, Collection<String> haves, FetchOptions options, boolean done) throws IOException {
+        final var capabilities = getCapabilities();
+
+        final var requested = new StringBuilder();
+        for (final var capability : List.of(MULTI_ACK_DETAILED, SIDEBAND_64K, THIN_PACK, OFS_DELTA, SHALLOW)) {
+            if (capability.equals(THIN_PACK) && !isThinPackWanted(haves, options)) {
+                continue;
+            }
+
+            if (capabilities.has(capability)) {
+                requested.append(' ').append(capability);
+            }
+        }
+
+        if (options.filter() != null) {
+            requested.append(' ').append(FILTER);
+        }
+
+        if (capabilities.has("agent")) {
+            requested.append(" agent=").append(AGENT);
+        }
+
+        final var lines = new ArrayList<PacketLine>();
+
+        for (final var want : wants) {
+            lines.add(PacketLine.data("want %s%s\n".formatted(want, lines.isEmpty() ? requested : "")));
+        }
+
+        for (final var shallow : options.shallow()) {
+            lines.add(PacketLine.data("shallow %s\n".formatted(shallow)));
+        }
+
+        if (options.depth() != 0) {
+            lines.add(PacketLine.data("deepen %d\n".formatted(options.depth())));
+        }
+
+        if (options.filter() != null) {
+            lines.add(PacketLine.data("filter %s\n".formatted(options.filter())));
+        }
+
+        lines.add(PacketLine.flush());
+
+        for (final var have : haves) {
+            lines.add(PacketLine.data("have %s\n".formatted(have)));
+        }
+
+        lines.add(done ? PacketLine.data("done\n") : PacketLine.flush());
+
+        return lines;
+    }
+
+    private void readToPackfile(InputStream inputStream, ShallowUpdate update) throws IOException {
+        while (true) {
+            final var line = parsePacketLine(inputStream);
+
+            if (!(line instanceof PacketLine.Data data)) {
+                throw new IllegalStateException("missing packfile section, got: " + line);
+            }
+
+            final var header = data.text();
+            if (header.equals("packfile")) {
+                return;
+            }
+
+            if (header.startsWith("ERR ")) {
+                throw new IllegalStateException("remote error: " + header.substring(4));
+            }
+
+            PacketLine content;
+            while ((content = parsePacketLine(inputStream)) instanceof PacketLine.Data contentData) {
+                if (header.equals("shallow-info")) {
+                    update.add(contentData.text());
+                }
+            }
+
+            if (content != PacketLine.delimiter()) {
+                throw new IllegalStateException("section %s is not followed by packfile: %s".formatted(header, content));
+            }
+        }
+    }
+
+    private void readShallowInfo(InputStream inputStream, ShallowUpdate update) throws IOException {
+        PacketLine line;
+        while ((line = parsePacketLine(inputStream)) instanceof PacketLine.Data data) {
+            update.add(data.text());
+        }
+
+        if (line != PacketLine.flush()) {
+            throw new IllegalStateException("shallow list must end with a flush: " + line);
+        }
+    }
+
+    private Response command(String command, List<PacketLine> arguments) throws IOException {
+        final var capabilities = getCapabilities();
+
+        final var lines = new ArrayList<PacketLine>();
+        lines.add(PacketLine.data("command=%s\n".formatted(command)));
+
+        if (capabilities.has("agent")) {
+            lines.add(PacketLine.data("agent=%s\n".formatted(AGENT)));
+        }
+
+        if (capabilities.has("object-format")) {
+            lines.add(PacketLine.data("object-format=%s\n".formatted(OBJECT_FORMAT)));
+        }
+
+        lines.add(PacketLine.delimiter());
+        lines.addAll(arguments);
+        lines.add(PacketLine.flush());
+
+        return post(lines, true);
+    }
+
+    private Response post(List<PacketLine> lines, boolean version2) throws IOException {
         final var outputStream = new ByteArrayOutputStream();
-        for (final var line : requestLines) {
+        for (final var line : lines) {
             line.serialize(outputStream);
         }
 
-        final var request = new Request.Builder()
+        final var builder = new Request.Builder()
                 .url(
                         HttpUrl.get(baseUri)
                                 .newBuilder()
                                 .addPathSegment("git-upload-pack")
                                 .build()
                 )
-                .post(RequestBody.create(outputStream.toByteArray(), X_GIT_UPLOAD_PACK_REQUEST))
+                .post(RequestBody.create(outputStream.toByteArray(), X_GIT_UPLOAD_PACK_REQUEST));
+
+        if (version2) {
+            builder.header(PROTOCOL_HEADER, PROTOCOL_VERSION_2);
+        }
+
+        final var response = httpClient.newCall(builder.build()).execute();
+        if (!response.isSuccessful()) {
+            response.close();
+            throw new IllegalStateException("response is not successful: " + response.code());
+        }
+
+        return response;
+    }
+
+    private Advertisement getAdvertisement() throws IOException {
+        if (advertisement == null) {
+            advertisement = discover();
+        }
+
+        return advertisement;
+    }
+
+    private Advertisement discover() throws IOException {
+        final var request = new Request.Builder()
+                .url(
+                        HttpUrl.get(baseUri)
+                                .newBuilder()
+                                .addPathSegment("info")
+                                .addPathSegment("refs")
+                                .addQueryParameter("service", "git-upload-pack")
+                                .build()
+                )
+                .header(PROTOCOL_HEADER, PROTOCOL_VERSION_2)
+                .get()
                 .build();
 
-        try (
-                final var response = httpClient.newCall(request).execute();
-                final var responseBody = response.body();
-                final var inputStream = responseBody.byteStream();
-        ) {
-            if (!response.isSuccessful()) {
-                throw new IllegalStateException("response is not successful: " + response.code());
-            }
+        final List<PacketLine> lines;
+        try (final var response = httpClient.newCall(request).execute()) {
+            lines = parsePacketLines(response);
+        }
+
+        final var data = lines.stream()
+                .filter((line) -> line instanceof PacketLine.Data dataLine && !dataLine.isComment())
+                .map(PacketLine.Data.class::cast)
+                .toList();
+
+        if (!data.isEmpty() && data.getFirst().text().equals("version 2")) {
+            final var capabilities = data.subList(1, data.size()).stream().map(PacketLine.Data::text).toList();
+
+            return new Advertisement(Capabilities.parseVersion2(capabilities), Collections.emptyList());
+        }
 
-            final var first = parsePacketLine(inputStream);
-            if (!(first instanceof PacketLine.Data data)) {
-                throw new IllegalStateException("first packet line must be data: " + first);
+        return parseVersion0Advertisement(data);
+    }
+
+    private static Advertisement parseVersion0Advertisement(List<PacketLine.Data> lines) {
+        var capabilities = Capabilities.parseVersion0("");
+        final var references = new ArrayList<Reference>();
+
+        for (final var line : lines) {
+            var text = line.text();
+
+            final var nul = text.indexOf('\0');
+            if (nul != -1) {
+                capabilities = Capabilities.parseVersion0(text.substring(nul + 1));
+                text = text.substring(0, nul);
             }
 
-            final var nak = new String(data.content(), 0, 3);
-            if (!"NAK".equals(nak)) {
-                throw new IllegalStateException("first packet line must be nak: " + nak);
+            final var hash = text.substring(0, Git.HASH_STRING_LENGTH);
+            final var name = text.substring(Git.HASH_STRING_LENGTH + 1);
+
+            if (name.endsWith(PEELED_SUFFIX) && !references.isEmpty()) {
+                final var previous = references.remove(references.size() - 1);
+                references.add(new Reference(previous.name(), previous.hash(), previous.target(), hash));
+            } else if (!name.equals("capabilities" + PEELED_SUFFIX)) {
+                references.add(new Reference(name, hash));
             }
+        }
 
-            return inputStream.readAllBytes();
+        final var symbolicReference = capabilities.get("symref");
+        if (symbolicReference != null) {
+            final var colon = symbolicReference.indexOf(':');
+            final var name = symbolicReference.substring(0, colon);
+
+            references.replaceAll((reference) -> {
+                if (!reference.name().equals(name)) {
+                    return reference;
+                }
+
+                return new Reference(name, reference.hash(), symbolicReference.substring(colon + 1), reference.peeled());
+            });
         }
+
+        return new Advertisement(capabilities, Collections.unmodifiableList(references));
+    }
+
+    private static Reference parseListedReference(String line) {
+        final var parts = line.split(" ");
+        if (parts.length < 2) {
+            throw new IllegalStateException("bad ls-refs line: " + line);
+        }
+
+        String target = null;
+        String peeled = null;
+
+        for (var index = 2; index < parts.length; ++index) {
+            final var attribute = parts[index];
+
+            if (attribute.startsWith(SYMBOLIC_TARGET_ATTRIBUTE)) {
+                target = attribute.substring(SYMBOLIC_TARGET_ATTRIBUTE.length());
+            } else if (attribute.startsWith(PEELED_ATTRIBUTE)) {
+                peeled = attribute.substring(PEELED_ATTRIBUTE.length());
+            }
+        }
+
+        return new Reference(parts[1], parts[0], target, peeled);
     }
 
     public List<PacketLine> parsePacketLines(Response response) throws IOException {
@@ -146,20 +616,45 @@ public class GitClient {
     }
 
     public PacketLine parsePacketLine(InputStream inputStream) throws IOException {
-        final var sizeBuffer = new byte[4];
+        final var sizeBuffer = inputStream.readNBytes(4);
 
-        if (inputStream.read(sizeBuffer) != sizeBuffer.length) {
+        if (sizeBuffer.length == 0) {
             return null;
         }
 
+        if (sizeBuffer.length != 4) {
+            throw new EOFException("truncated packet line length");
+        }
+
         final var size = Integer.parseInt(new String(sizeBuffer, StandardCharsets.US_ASCII), 16);
 
-        if (size == 0) {
-            return PacketLine.flush();
-        }
+        return switch (size) {
+            case 0 -> PacketLine.flush();
+            case 1 -> PacketLine.delimiter();
+            case 2 -> PacketLine.ResponseEnd.INSTANCE;
+            case 3 -> throw new IllegalStateException("invalid packet line length: " + size);
+            default -> {
+                final var content = inputStream.readNBytes(size - sizeBuffer.length);
+                if (content.length != size - sizeBuffer.length) {
+                    throw new EOFException("truncated packet line");
+                }
 
-        final var content = inputStream.readNBytes(size - sizeBuffer.length);
-        return PacketLine.data(content);
+                yield PacketLine.data(content);
+            }
+        };
     }
 
-}
\ No newline at end of file
+    private static enum Round {
+
+        CONTINUE,
+        READY,
+        PACK_RECEIVED;
+
+    }
+
+    private static record Advertisement(
+            Capabilities capabilities,
+            List<Reference> references
+    ) {}
+
+}
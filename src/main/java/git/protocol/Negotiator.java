@@ -0,0 +1,79 @@
+package git.protocol;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import git.domain.ObjectId;
+import git.graph.RevWalk;
+
+public class Negotiator {
+
+    private final RevWalk walk;
+    private final PriorityQueue<RevWalk.RevCommit> queue = new PriorityQueue<>(RevWalk.BY_COMMIT_TIME);
+    private final Set<ObjectId> seen = new HashSet<>();
+    private final Set<ObjectId> common = new HashSet<>();
+
+    public Negotiator(RevWalk walk, Collection<ObjectId> tips) throws IOException {
+        this.walk = walk;
+
+        for (final var tip : tips) {
+            push(tip);
+        }
+    }
+
+    public List<ObjectId> next(int count) throws IOException {
+        final var haves = new ArrayList<ObjectId>(count);
+
+        while (haves.size() < count && !queue.isEmpty()) {
+            final var commit = queue.poll();
+
+            if (common.contains(commit.id())) {
+                common.addAll(commit.parents());
+                continue;
+            }
+
+            haves.add(commit.id());
+
+            for (final var parent : commit.parents()) {
+                push(parent);
+            }
+        }
+
+        return haves;
+    }
+
+    public boolean acknowledge(ObjectId id) throws IOException {
+        if (!common.add(id)) {
+            return false;
+        }
+
+        if (seen.contains(id)) {
+            common.addAll(walk.lookup(id).parents());
+        }
+
+        return true;
+    }
+
+    public boolean isExhausted() {
+        return queue.isEmpty();
+    }
+
+    private void push(ObjectId id) throws IOException {
+        if (!seen.add(id)) {
+            return;
+        }
+
+        try {
+            queue.add(walk.lookup(id));
+        } catch (FileNotFoundException exception) {
+            /* not available locally, nothing to advertise past it */
+        }
+    }
+
+}
@@ -2,8 +2,9 @@ package git.protocol;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
-public sealed interface PacketLine permits PacketLine.Data, PacketLine.Flush {
+public sealed interface PacketLine permits PacketLine.Data, PacketLine.Flush, PacketLine.Delimiter, PacketLine.ResponseEnd {
 
     void serialize(OutputStream outputStream) throws IOException;
 
@@ -20,6 +21,15 @@ public sealed interface PacketLine permits PacketLine.Data, PacketLine.Flush {
             return content.length != 0 && content[0] == '#';
         }
 
+        public String text() {
+            var length = content.length;
+            if (length != 0 && content[length - 1] == '\n') {
+                --length;
+            }
+
+            return new String(content, 0, length, StandardCharsets.UTF_8);
+        }
+
     }
 
     public static enum Flush implements PacketLine {
@@ -35,6 +45,32 @@ public sealed interface PacketLine permits PacketLine.Data, PacketLine.Flush {
 
     }
 
+    public static enum Delimiter implements PacketLine {
+
+        INSTANCE;
+
+        private static final byte[] DELIMITER_BYTES = "0001".getBytes();
+
+        @Override
+        public void serialize(OutputStream outputStream) throws IOException {
+            outputStream.write(DELIMITER_BYTES);
+        }
+
+    }
+
+    public static enum ResponseEnd implements PacketLine {
+
+        INSTANCE;
+
+        private static final byte[] RESPONSE_END_BYTES = "0002".getBytes();
+
+        @Override
+        public void serialize(OutputStream outputStream) throws IOException {
+            outputStream.write(RESPONSE_END_BYTES);
+        }
+
+    }
+
     public static Data data(byte[] content) {
         return new Data(content);
     }
@@ -47,4 +83,8 @@ public sealed interface PacketLine permits PacketLine.Data, PacketLine.Flush {
         return Flush.INSTANCE;
     }
 
+    public static Delimiter delimiter() {
+        return Delimiter.INSTANCE;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package git.protocol;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public record ShallowUpdate(
+        Set<String> shallow,
+        Set<String> unshallow
+) {
+
+    public static final String SHALLOW_PREFIX = "shallow ";
+    public static final String UNSHALLOW_PREFIX = "unshallow ";
+
+    public boolean isEmpty() {
+        return shallow.isEmpty() && unshallow.isEmpty();
+    }
+
+    public void add(String line) {
+        if (line.startsWith(SHALLOW_PREFIX)) {
+            shallow.add(line.substring(SHALLOW_PREFIX.length()));
+        } else if (line.startsWith(UNSHALLOW_PREFIX)) {
+            unshallow.add(line.substring(UNSHALLOW_PREFIX.length()));
+        } else {
+            throw new IllegalStateException("unexpected shallow-info line: " + line);
+        }
+    }
+
+    public static ShallowUpdate create() {
+        return new ShallowUpdate(new LinkedHashSet<>(), new LinkedHashSet<>());
+    }
+
+}
@@ -0,0 +1,145 @@
+package git.protocol;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class SidebandInputStream extends InputStream {
+
+    public static final int LARGE_PACKET_MAX = 65520;
+    public static final int LENGTH_SIZE = 4;
+
+    public static final byte DATA_CHANNEL = 1;
+    public static final byte PROGRESS_CHANNEL = 2;
+    public static final byte ERROR_CHANNEL = 3;
+
+    private static final byte[] PROGRESS_PREFIX = "remote: ".getBytes(StandardCharsets.US_ASCII);
+
+    private final InputStream inputStream;
+    private final OutputStream progressOutputStream;
+    private final byte[] lengthBuffer = new byte[LENGTH_SIZE];
+    private final byte[] buffer = new byte[LARGE_PACKET_MAX];
+
+    private int position;
+    private int limit;
+    private boolean finished;
+    private boolean progressLineStart = true;
+
+    public SidebandInputStream(InputStream inputStream, OutputStream progressOutputStream) {
+        this.inputStream = inputStream;
+        this.progressOutputStream = progressOutputStream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+
+        return Byte.toUnsignedInt(buffer[position++]);
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+
+        if (position == limit && !fill()) {
+            return -1;
+        }
+
+        final var count = Math.min(length, limit - position);
+        System.arraycopy(buffer, position, bytes, offset, count);
+        position += count;
+
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    private boolean fill() throws IOException {
+        while (!finished) {
+            final var length = readLength();
+
+            if (length == 0) {
+                finished = true;
+                break;
+            }
+
+            if (length <= LENGTH_SIZE || length > LARGE_PACKET_MAX) {
+                throw new IllegalStateException("invalid sideband packet length: " + length);
+            }
+
+            final var size = length - LENGTH_SIZE;
+            if (inputStream.readNBytes(buffer, 0, size) != size) {
+                throw new EOFException("truncated sideband packet");
+            }
+
+            switch (buffer[0]) {
+                case DATA_CHANNEL -> {
+                    position = 1;
+                    limit = size;
+
+                    if (limit != position) {
+                        return true;
+                    }
+                }
+
+                case PROGRESS_CHANNEL -> reportProgress(size);
+                case ERROR_CHANNEL -> throw new IllegalStateException("remote error: " + new String(buffer, 1, size - 1, StandardCharsets.UTF_8).strip());
+                default -> throw new IllegalStateException("unknown sideband channel: " + buffer[0]);
+            }
+        }
+
+        position = limit = 0;
+        return false;
+    }
+
+    private int readLength() throws IOException {
+        if (inputStream.readNBytes(lengthBuffer, 0, LENGTH_SIZE) != LENGTH_SIZE) {
+            throw new EOFException("sideband stream ended without a flush");
+        }
+
+        var length = 0;
+        for (final var character : lengthBuffer) {
+            final var digit = Character.digit(character, 16);
+            if (digit == -1) {
+                throw new IllegalStateException("invalid packet line length: " + new String(lengthBuffer, StandardCharsets.US_ASCII));
+            }
+
+            length = (length << 4) | digit;
+        }
+
+        return length;
+    }
+
+    private void reportProgress(int size) throws IOException {
+        if (progressOutputStream == null) {
+            return;
+        }
+
+        for (var index = 1; index < size; ++index) {
+            final var value = buffer[index];
+
+            if (progressLineStart) {
+                progressOutputStream.write(PROGRESS_PREFIX);
+                progressLineStart = false;
+            }
+
+            progressOutputStream.write(value);
+
+            if (value == '\r' || value == '\n') {
+                progressLineStart = true;
+            }
+        }
+
+        progressOutputStream.flush();
+    }
+
+}
@@ -0,0 +1,154 @@
+package git.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class ZlibPool {
+
+    public static final long INFLATER_NATIVE_BYTES = (7 + 32) * 1024;
+    public static final long DEFLATER_NATIVE_BYTES = (6 + 256) * 1024;
+
+    public static final ZlibPool SHARED = new ZlibPool(Runtime.getRuntime().availableProcessors() * 2);
+
+    private final int maxIdle;
+
+    private final ConcurrentLinkedQueue<Inflater> idleInflaters = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Deflater> idleDeflaters = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger idleInflaterCount = new AtomicInteger();
+    private final AtomicInteger idleDeflaterCount = new AtomicInteger();
+
+    private final AtomicLong inflatersCreated = new AtomicLong();
+    private final AtomicLong inflatersEnded = new AtomicLong();
+    private final AtomicLong inflaterAcquisitions = new AtomicLong();
+
+    private final AtomicLong deflatersCreated = new AtomicLong();
+    private final AtomicLong deflatersEnded = new AtomicLong();
+    private final AtomicLong deflaterAcquisitions = new AtomicLong();
+
+    public Inflater acquireInflater() {
+        inflaterAcquisitions.incrementAndGet();
+
+        final var inflater = idleInflaters.poll();
+        if (inflater != null) {
+            idleInflaterCount.decrementAndGet();
+            return inflater;
+        }
+
+        inflatersCreated.incrementAndGet();
+        return new Inflater();
+    }
+
+    public void release(Inflater inflater) {
+        if (idleInflaterCount.incrementAndGet() > maxIdle) {
+            idleInflaterCount.decrementAndGet();
+
+            inflater.end();
+            inflatersEnded.incrementAndGet();
+
+            return;
+        }
+
+        inflater.reset();
+        idleInflaters.offer(inflater);
+    }
+
+    public Deflater acquireDeflater(int level) {
+        deflaterAcquisitions.incrementAndGet();
+
+        var deflater = idleDeflaters.poll();
+        if (deflater != null) {
+            idleDeflaterCount.decrementAndGet();
+        } else {
+            deflatersCreated.incrementAndGet();
+            deflater = new Deflater();
+        }
+
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    public void release(Deflater deflater) {
+        if (idleDeflaterCount.incrementAndGet() > maxIdle) {
+            idleDeflaterCount.decrementAndGet();
+
+            deflater.end();
+            deflatersEnded.incrementAndGet();
+
+            return;
+        }
+
+        deflater.reset();
+        idleDeflaters.offer(deflater);
+    }
+
+    public void clear() {
+        Inflater inflater;
+        while ((inflater = idleInflaters.poll()) != null) {
+            idleInflaterCount.decrementAndGet();
+
+            inflater.end();
+            inflatersEnded.incrementAndGet();
+        }
+
+        Deflater deflater;
+        while ((deflater = idleDeflaters.poll()) != null) {
+            idleDeflaterCount.decrementAndGet();
+
+            deflater.end();
+            deflatersEnded.incrementAndGet();
+        }
+    }
+
+    public Metrics metrics() {
+        final var liveInflaters = inflatersCreated.get() - inflatersEnded.get();
+        final var liveDeflaters = deflatersCreated.get() - deflatersEnded.get();
+
+        return new Metrics(
+                inflaterAcquisitions.get(),
+                inflatersCreated.get(),
+                liveInflaters,
+                idleInflaterCount.get(),
+                deflaterAcquisitions.get(),
+                deflatersCreated.get(),
+                liveDeflaters,
+                idleDeflaterCount.get(),
+                liveInflaters * INFLATER_NATIVE_BYTES + liveDeflaters * DEFLATER_NATIVE_BYTES
+        );
+    }
+
+    public static record Metrics(
+            long inflaterAcquisitions,
+            long inflatersCreated,
+            long liveInflaters,
+            int idleInflaters,
+            long deflaterAcquisitions,
+            long deflatersCreated,
+            long liveDeflaters,
+            int idleDeflaters,
+            long estimatedNativeBytes
+    ) {
+
+        public String format() {
+            return "zlib: inflaters %d acquired, %d created, %d live (%d idle); deflaters %d acquired, %d created, %d live (%d idle); ~%d KiB native".formatted(
+                    inflaterAcquisitions,
+                    inflatersCreated,
+                    liveInflaters,
+                    idleInflaters,
+                    deflaterAcquisitions,
+                    deflatersCreated,
+                    liveDeflaters,
+                    idleDeflaters,
+                    estimatedNativeBytes / 1024
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,110 @@
+package git;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class GitCommand {
+
+    public static final Map<String, String> ENVIRONMENT = Map.of(
+            "GIT_AUTHOR_NAME", "Author",
+            "GIT_AUTHOR_EMAIL", "author@example.com",
+            "GIT_AUTHOR_DATE", "1700000000 +0000",
+            "GIT_COMMITTER_NAME", "Committer",
+            "GIT_COMMITTER_EMAIL", "committer@example.com",
+            "GIT_COMMITTER_DATE", "1700000000 +0000",
+            "GIT_CONFIG_NOSYSTEM", "1",
+            "GIT_CONFIG_GLOBAL", "/dev/null"
+    );
+
+    public static boolean isAvailable() {
+        try {
+            return start(null, List.of("version"), Map.of(), ProcessBuilder.Redirect.DISCARD).waitFor() == 0;
+        } catch (IOException | InterruptedException exception) {
+            return false;
+        }
+    }
+
+    public static Path init(Path directory) {
+        run(directory.getParent(), "init", "-q", "-b", "master", directory.getFileName().toString());
+
+        return directory;
+    }
+
+    public static void commit(Path repository, String path, String content) {
+        try {
+            final var file = repository.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        run(repository, "add", path);
+        run(repository, "commit", "-q", "-m", "update " + path);
+    }
+
+    public static String run(Path directory, String... args) {
+        return new String(run(directory, null, Map.of(), args), StandardCharsets.UTF_8);
+    }
+
+    public static byte[] run(Path directory, byte[] input, Map<String, String> environment, String... args) {
+        try {
+            final var errorPath = Files.createTempFile("git-stderr-", "");
+
+            try {
+                final var process = start(directory, List.of(args), environment, ProcessBuilder.Redirect.to(errorPath.toFile()));
+
+                final var writer = Thread.ofVirtual().start(() -> {
+                    try (final var outputStream = process.getOutputStream()) {
+                        if (input != null) {
+                            outputStream.write(input);
+                        }
+                    } catch (IOException exception) {
+                        /* the process exited before reading its input */
+                    }
+                });
+
+                final var output = process.getInputStream().readAllBytes();
+                final var status = process.waitFor();
+                writer.join();
+
+                if (status != 0) {
+                    throw new IllegalStateException("git %s exited with %d: %s".formatted(String.join(" ", args), status, Files.readString(errorPath)));
+                }
+
+                return output;
+            } finally {
+                Files.deleteIfExists(errorPath);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static Process start(Path directory, List<String> args, Map<String, String> environment, ProcessBuilder.Redirect error) throws IOException {
+        final var command = new ArrayList<String>();
+        command.add("git");
+        command.addAll(args);
+
+        final var builder = new ProcessBuilder(command);
+        builder.environment().putAll(ENVIRONMENT);
+        builder.environment().putAll(environment);
+        builder.redirectError(error);
+
+        if (directory != null) {
+            builder.directory(directory.toFile());
+        }
+
+        return builder.start();
+    }
+
+}
@@ -0,0 +1,54 @@
+package git.graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import git.Git;
+import git.GitCommand;
+import git.domain.ObjectId;
+
+class CommitGraphTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesAGraphThatGitVerifies() throws Exception {
+        assumeTrue(GitCommand.isAvailable(), "git is not installed");
+
+        final var root = GitCommand.init(directory.resolve("repository"));
+
+        for (var index = 0; index < 5; ++index) {
+            GitCommand.commit(root, "main.txt", "main %d\n".formatted(index));
+        }
+
+        GitCommand.run(root, "checkout", "-q", "-b", "feature", "HEAD~2");
+        for (var index = 0; index < 3; ++index) {
+            GitCommand.commit(root, "feature.txt", "feature %d\n".formatted(index));
+        }
+
+        GitCommand.run(root, "checkout", "-q", "master");
+        GitCommand.run(root, "merge", "-q", "--no-ff", "-m", "merge feature", "feature");
+        GitCommand.run(root, "tag", "-a", "-m", "release", "v1.0");
+        Files.writeString(root.resolve(".git/refs/heads/stale.lock"), "");
+
+        final var git = Git.open(root);
+        final var count = git.writeCommitGraph(git.readCommitTips());
+
+        GitCommand.run(root, "commit-graph", "verify");
+        assertEquals(Integer.parseInt(GitCommand.run(root, "rev-list", "--all", "--count").strip()), count);
+
+        final var graph = git.readCommitGraph();
+        assertEquals(count, graph.size());
+
+        final var merge = graph.findPosition(ObjectId.fromString(GitCommand.run(root, "rev-parse", "HEAD").strip()));
+        assertEquals(2, graph.getParentPositions(merge).length);
+    }
+
+}
@@ -0,0 +1,102 @@
+package git.index;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import git.Git;
+import git.GitCommand;
+
+class IndexTest {
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void checkGit() {
+        assumeTrue(GitCommand.isAvailable(), "git is not installed");
+    }
+
+    @Test
+    void writesAnIndexThatGitReads() throws Exception {
+        final var ours = GitCommand.init(directory.resolve("ours"));
+        final var theirs = GitCommand.init(directory.resolve("theirs"));
+
+        populate(ours);
+        populate(theirs);
+
+        final var hash = Git.open(ours).writeTree(ours);
+
+        GitCommand.run(theirs, "add", "-A");
+
+        assertEquals(GitCommand.run(theirs, "ls-files", "--stage"), GitCommand.run(ours, "ls-files", "--stage"));
+        assertEquals(GitCommand.run(theirs, "write-tree").strip(), hash);
+        assertEquals(hash, GitCommand.run(ours, "write-tree").strip());
+        assertEquals("", GitCommand.run(ours, "diff", "--name-only"));
+    }
+
+    @Test
+    void reusesTheIndexOnRerun() throws Exception {
+        final var root = GitCommand.init(directory.resolve("repository"));
+        populate(root);
+
+        final var git = Git.open(root);
+        final var first = git.writeTree(root);
+
+        Files.writeString(root.resolve("src/main/App.java"), "class App { int changed; }\n");
+
+        final var second = Git.open(root).writeTree(root, 4);
+
+        GitCommand.run(root, "add", "-A");
+        assertEquals(GitCommand.run(root, "write-tree").strip(), second);
+        assertEquals(GitCommand.run(root, "rev-parse", first + ":README.md"), GitCommand.run(root, "rev-parse", second + ":README.md"));
+    }
+
+    @Test
+    void roundTripsGitsIndex() throws Exception {
+        final var root = GitCommand.init(directory.resolve("repository"));
+        populate(root);
+
+        GitCommand.run(root, "add", "-A");
+        GitCommand.run(root, "write-tree");
+
+        final var bytes = Files.readAllBytes(root.resolve(".git/index"));
+        final var serializer = new IndexSerializer();
+        final var index = serializer.deserialize(ByteBuffer.wrap(bytes));
+
+        assertNotNull(index.cacheTree());
+
+        final var outputStream = new ByteArrayOutputStream();
+        serializer.serialize(index, outputStream);
+
+        assertArrayEquals(bytes, outputStream.toByteArray());
+    }
+
+    private static void populate(Path root) throws IOException {
+        Files.createDirectories(root.resolve("src/main"));
+        Files.createDirectories(root.resolve("src/test"));
+        Files.createDirectories(root.resolve("docs"));
+
+        Files.writeString(root.resolve("README.md"), "# project\n");
+        Files.writeString(root.resolve("src/main/App.java"), "class App {}\n");
+        Files.writeString(root.resolve("src/main/App-helper.java"), "class Helper {}\n");
+        Files.writeString(root.resolve("src/test/AppTest.java"), "class AppTest {}\n");
+        Files.writeString(root.resolve("docs/empty.txt"), "");
+
+        final var script = Files.writeString(root.resolve("build.sh"), "#!/bin/sh\necho build\n");
+        Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwxr-xr-x"));
+    }
+
+}
@@ -0,0 +1,72 @@
+package git.pack;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import git.GitCommand;
+
+class PackIndexerTest {
+
+    @TempDir
+    Path directory;
+
+    Path packPath;
+
+    @BeforeEach
+    void createPack() throws IOException {
+        assumeTrue(GitCommand.isAvailable(), "git is not installed");
+
+        final var repository = GitCommand.init(directory.resolve("repository"));
+
+        final var content = new StringBuilder();
+        for (var index = 0; index < 40; ++index) {
+            content.append("line %d of a file that keeps growing\n".formatted(index));
+
+            GitCommand.commit(repository, "growing.txt", content.toString());
+            GitCommand.commit(repository, "directory/file-%d.txt".formatted(index % 4), "version %d\n".formatted(index).repeat(50));
+        }
+
+        GitCommand.run(repository, "repack", "-adf", "--depth=50", "--window=250", "-q");
+
+        try (final var packs = Files.newDirectoryStream(repository.resolve(".git/objects/pack"), "*.pack")) {
+            packPath = packs.iterator().next();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 4 })
+    void writesTheSameIndexAsGit(int threads) throws Exception {
+        final var pack = Files.readAllBytes(packPath);
+        final var expected = Files.readAllBytes(Path.of(packPath.toString().replace(".pack", ".idx")));
+
+        final var entries = new PackIndexer(ByteBuffer.wrap(pack), threads).index();
+
+        final var outputStream = new ByteArrayOutputStream();
+        PackIndex.write(entries, Arrays.copyOfRange(pack, pack.length - 20, pack.length), outputStream);
+
+        assertArrayEquals(expected, outputStream.toByteArray());
+    }
+
+    @Test
+    void rejectsACorruptChecksum() throws IOException {
+        final var pack = Files.readAllBytes(packPath);
+        pack[pack.length - 1] ^= 1;
+
+        assertThrows(IllegalStateException.class, () -> new PackIndexer(ByteBuffer.wrap(pack), 1).index());
+    }
+
+}
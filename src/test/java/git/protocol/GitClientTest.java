@@ -0,0 +1,131 @@
+package git.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import git.Git;
+import git.GitCommand;
+import git.domain.Reference;
+
+class GitClientTest {
+
+    @TempDir
+    Path directory;
+
+    Path upstream;
+
+    @BeforeAll
+    static void checkGit() {
+        assumeTrue(GitCommand.isAvailable(), "git is not installed");
+    }
+
+    @BeforeEach
+    void createUpstream() {
+        upstream = GitCommand.init(directory.resolve("upstream"));
+
+        for (var index = 0; index < 10; ++index) {
+            GitCommand.commit(upstream, "file-%d.txt".formatted(index % 3), "content %d\n".formatted(index).repeat(index + 1));
+        }
+
+        GitCommand.run(upstream, "branch", "feature", "HEAD~3");
+        GitCommand.run(upstream, "tag", "-a", "-m", "release", "v1.0", "HEAD~5");
+        GitCommand.run(upstream, "tag", "light", "HEAD~1");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void listsReferencesLikeShowRef(boolean version2) throws IOException {
+        try (final var server = new UploadPackServer(directory, version2)) {
+            final var client = new GitClient(server.getUri("upstream"));
+            final var references = client.listReferences(List.of(Git.HEAD, Git.BRANCH_PREFIX, Git.TAG_PREFIX));
+
+            assertEquals(version2, client.getCapabilities().isVersion2());
+
+            final var actual = new TreeMap<String, String>();
+            for (final var reference : references) {
+                actual.put(reference.name(), reference.hash());
+            }
+
+            final var expected = new TreeMap<String, String>();
+            for (final var line : GitCommand.run(upstream, "show-ref", "--head").lines().toList()) {
+                final var parts = line.split(" ");
+                expected.put(parts[1], parts[0]);
+            }
+
+            assertEquals(expected, actual);
+
+            final var head = findReference(references, Git.HEAD);
+            assertEquals(Git.BRANCH_PREFIX + "master", head.target());
+
+            final var tag = findReference(references, Git.TAG_PREFIX + "v1.0");
+            assertEquals(GitCommand.run(upstream, "rev-parse", "v1.0^{commit}").strip(), tag.peeled());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void fetchesAPackWithEveryWantedObject(boolean version2) throws IOException {
+        try (final var server = new UploadPackServer(directory, version2)) {
+            final var client = new GitClient(server.getUri("upstream"));
+            final var head = GitCommand.run(upstream, "rev-parse", "HEAD").strip();
+
+            final var outputStream = new ByteArrayOutputStream();
+            client.getPack(List.of(head), outputStream);
+
+            final var packPath = directory.resolve("fetched.pack");
+            Files.write(packPath, outputStream.toByteArray());
+            GitCommand.run(upstream, "index-pack", packPath.toString());
+
+            final var index = Files.readAllBytes(directory.resolve("fetched.idx"));
+            final var objects = GitCommand.run(upstream, "rev-list", "--objects", "HEAD").lines().count();
+            final var indexed = new String(GitCommand.run(upstream, index, Map.of(), "show-index")).lines().count();
+            assertEquals(objects, indexed);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void clonesAndFetchesIncrementally(boolean version2) throws Exception {
+        try (final var server = new UploadPackServer(directory, version2)) {
+            final var clonePath = directory.resolve("clone");
+            final var git = Git.clone(server.getUri("upstream"), clonePath);
+
+            GitCommand.run(clonePath, "fsck", "--strict");
+            assertEquals(GitCommand.run(upstream, "rev-parse", "HEAD").strip(), GitCommand.run(clonePath, "rev-parse", "HEAD").strip());
+            assertEquals(GitCommand.run(upstream, "rev-parse", "v1.0").strip(), GitCommand.run(clonePath, "rev-parse", "v1.0").strip());
+
+            GitCommand.commit(upstream, "file-0.txt", "changed\n".repeat(100));
+            GitCommand.commit(upstream, "new.txt", "new\n");
+
+            final Map<String, String> updated = git.fetch(Git.DEFAULT_REMOTE);
+
+            final var head = GitCommand.run(upstream, "rev-parse", "HEAD").strip();
+            assertEquals(head, updated.get(Git.REMOTES_PREFIX + "origin/master"));
+            assertEquals(head, GitCommand.run(clonePath, "rev-parse", "origin/master").strip());
+
+            GitCommand.run(clonePath, "fsck", "--strict");
+        }
+    }
+
+    private static Reference findReference(List<Reference> references, String name) {
+        return references.stream()
+                .filter((reference) -> reference.name().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+}
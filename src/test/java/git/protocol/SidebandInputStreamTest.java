@@ -0,0 +1,92 @@
+package git.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class SidebandInputStreamTest {
+
+    @Test
+    void demultiplexesDataAndProgress() throws IOException {
+        final var progress = new ByteArrayOutputStream();
+        final var stream = stream(
+                packet(SidebandInputStream.PROGRESS_CHANNEL, "Counting: 1\rCounting: 2\n"),
+                packet(SidebandInputStream.DATA_CHANNEL, "PACK"),
+                packet(SidebandInputStream.PROGRESS_CHANNEL, "done\n"),
+                packet(SidebandInputStream.DATA_CHANNEL, "data"),
+                flush()
+        );
+
+        try (final var inputStream = new SidebandInputStream(stream, progress)) {
+            assertArrayEquals("PACKdata".getBytes(StandardCharsets.US_ASCII), inputStream.readAllBytes());
+            assertEquals(-1, inputStream.read());
+        }
+
+        assertEquals("remote: Counting: 1\rremote: Counting: 2\nremote: done\n", progress.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void handlesFullSizePackets() throws IOException {
+        final var payload = "x".repeat(SidebandInputStream.LARGE_PACKET_MAX - SidebandInputStream.LENGTH_SIZE - 1);
+        final var stream = stream(packet(SidebandInputStream.DATA_CHANNEL, payload), packet(SidebandInputStream.DATA_CHANNEL, payload), flush());
+
+        try (final var inputStream = new SidebandInputStream(stream, null)) {
+            assertEquals(payload.length() * 2, inputStream.readAllBytes().length);
+        }
+    }
+
+    @Test
+    void throwsOnRemoteError() {
+        final var stream = stream(packet(SidebandInputStream.ERROR_CHANNEL, "upload-pack: not our ref\n"), flush());
+
+        final var exception = assertThrows(IllegalStateException.class, () -> new SidebandInputStream(stream, null).read());
+        assertEquals("remote error: upload-pack: not our ref", exception.getMessage());
+    }
+
+    @Test
+    void throwsOnMissingFlush() {
+        final var stream = stream(packet(SidebandInputStream.DATA_CHANNEL, "PACK"));
+
+        assertThrows(EOFException.class, () -> new SidebandInputStream(stream, null).readAllBytes());
+    }
+
+    @Test
+    void throwsOnInvalidLength() {
+        final var stream = stream("zzzz".getBytes(StandardCharsets.US_ASCII));
+
+        assertThrows(IllegalStateException.class, () -> new SidebandInputStream(stream, null).read());
+    }
+
+    private static byte[] packet(byte channel, String content) {
+        final var payload = content.getBytes(StandardCharsets.US_ASCII);
+        final var outputStream = new ByteArrayOutputStream();
+
+        outputStream.writeBytes("%04x".formatted(SidebandInputStream.LENGTH_SIZE + 1 + payload.length).getBytes(StandardCharsets.US_ASCII));
+        outputStream.write(channel);
+        outputStream.writeBytes(payload);
+
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] flush() {
+        return "0000".getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static ByteArrayInputStream stream(byte[]... packets) {
+        final var outputStream = new ByteArrayOutputStream();
+        for (final var packet : packets) {
+            outputStream.writeBytes(packet);
+        }
+
+        return new ByteArrayInputStream(outputStream.toByteArray());
+    }
+
+}
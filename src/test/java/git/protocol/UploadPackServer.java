@@ -0,0 +1,94 @@
+package git.protocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import git.GitCommand;
+
+public class UploadPackServer implements AutoCloseable {
+
+    public static final String INFO_REFERENCES = "/info/refs";
+    public static final String UPLOAD_PACK = "/git-upload-pack";
+
+    private static final byte[] SERVICE_HEADER = "001e# service=git-upload-pack\n0000".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path root;
+    private final boolean version2;
+    private final HttpServer server;
+
+    public UploadPackServer(Path root, boolean version2) throws IOException {
+        this.root = root;
+        this.version2 = version2;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public URI getUri(String repository) {
+        return URI.create("http://127.0.0.1:%d/%s".formatted(server.getAddress().getPort(), repository));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final var path = exchange.getRequestURI().getPath();
+            final var environment = getEnvironment(exchange);
+
+            final byte[] response;
+            if (exchange.getRequestMethod().equals("GET") && path.endsWith(INFO_REFERENCES)) {
+                final var repository = resolveRepository(path, INFO_REFERENCES);
+                final var advertisement = GitCommand.run(null, null, environment, "upload-pack", "--stateless-rpc", "--advertise-refs", repository.toString());
+
+                response = environment.containsKey("GIT_PROTOCOL") ? advertisement : concat(SERVICE_HEADER, advertisement);
+            } else if (exchange.getRequestMethod().equals("POST") && path.endsWith(UPLOAD_PACK)) {
+                final var repository = resolveRepository(path, UPLOAD_PACK);
+                final var request = exchange.getRequestBody().readAllBytes();
+
+                response = GitCommand.run(null, request, environment, "upload-pack", "--stateless-rpc", repository.toString());
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+        }
+    }
+
+    private Map<String, String> getEnvironment(HttpExchange exchange) {
+        final var environment = new HashMap<String, String>();
+
+        final var protocol = exchange.getRequestHeaders().getFirst(GitClient.PROTOCOL_HEADER);
+        if (version2 && protocol != null) {
+            environment.put("GIT_PROTOCOL", protocol);
+        }
+
+        return environment;
+    }
+
+    private Path resolveRepository(String path, String suffix) {
+        return root.resolve(path.substring(1, path.length() - suffix.length()));
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        final var bytes = new byte[first.length + second.length];
+        System.arraycopy(first, 0, bytes, 0, first.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+
+        return bytes;
+    }
+
+}